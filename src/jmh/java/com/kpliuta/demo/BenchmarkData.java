@@ -0,0 +1,65 @@
+package com.kpliuta.demo;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persisted-looking entities for benchmarks: with IDs and versions, full-length descriptions and prices, and priced
+ * orders.
+ */
+public final class BenchmarkData {
+
+    /**
+     * Number of distinct products referenced by the items of an order.
+     */
+    public static final int PRODUCTS = 10;
+
+    private BenchmarkData() {
+    }
+
+    public static Product buildProduct(int i) {
+        Product product = Product.builder()
+                .brand("Brand " + i)
+                .name("Product " + i)
+                .description("Description of product " + i + ", as long as a typical catalog entry: "
+                        + "fuel type, engine power, transmission, number of seats and doors, color")
+                .price(new BigDecimal("12345.67").add(BigDecimal.valueOf(i)))
+                .build();
+        product.setId(new ObjectId().toHexString());
+        product.setVersion(3);
+        return product;
+    }
+
+    public static List<Product> buildProducts() {
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(buildProduct(i));
+        }
+        return products;
+    }
+
+    /**
+     * @param items    number of items
+     * @param products products referenced by the items in turn
+     */
+    public static Order buildOrder(int items, List<Product> products) {
+        List<OrderItem> orderItems = new ArrayList<>(items);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < items; i++) {
+            Product product = products.get(i % products.size());
+            int quantity = 1 + i % 3;
+            orderItems.add(OrderItem.builder().product(product).quantity(quantity).unitPrice(product.getPrice()).build());
+            total = total.add(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+        }
+        Order order = Order.builder().customerId("customer-1").items(orderItems).total(total).build();
+        order.setId(new ObjectId().toHexString());
+        order.setVersion(7);
+        return order;
+    }
+}
@@ -0,0 +1,68 @@
+package com.kpliuta.demo.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kpliuta.demo.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of request and response bodies, with the object mapper configured as by Spring Boot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new Jackson2ObjectMapperBuilder().build();
+
+    @State(Scope.Benchmark)
+    public static class Orders {
+
+        @Param({"1", "10", "100", "1000"})
+        int items;
+
+        Order order;
+        byte[] json;
+
+        @Setup
+        public void setUp() throws IOException {
+            order = BenchmarkData.buildOrder(items, BenchmarkData.buildProducts());
+            json = OBJECT_MAPPER.writeValueAsBytes(order);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Products {
+
+        Product product;
+        byte[] json;
+
+        @Setup
+        public void setUp() throws IOException {
+            product = BenchmarkData.buildProduct(1);
+            json = OBJECT_MAPPER.writeValueAsBytes(product);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeOrder(Orders orders) throws IOException {
+        return OBJECT_MAPPER.writeValueAsBytes(orders.order);
+    }
+
+    @Benchmark
+    public Order readOrder(Orders orders) throws IOException {
+        return OBJECT_MAPPER.readValue(orders.json, Order.class);
+    }
+
+    @Benchmark
+    public byte[] writeProduct(Products products) throws IOException {
+        return OBJECT_MAPPER.writeValueAsBytes(products.product);
+    }
+
+    @Benchmark
+    public Product readProduct(Products products) throws IOException {
+        return OBJECT_MAPPER.readValue(products.json, Product.class);
+    }
+}
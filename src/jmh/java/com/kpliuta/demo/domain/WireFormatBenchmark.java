@@ -0,0 +1,70 @@
+package com.kpliuta.demo.domain;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.kpliuta.demo.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Order serialization in the negotiated wire formats, optionally gzip compressed as by the server. Payload sizes are
+ * printed on setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    String format;
+
+    @Param({"10", "100", "1000"})
+    int items;
+
+    ObjectMapper objectMapper;
+    Order order;
+    byte[] bytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        objectMapper = new Jackson2ObjectMapperBuilder().factory(factory).build();
+        order = BenchmarkData.buildOrder(items, BenchmarkData.buildProducts());
+        bytes = objectMapper.writeValueAsBytes(order);
+        System.out.printf("%n%s, %d items: %d bytes, %d bytes gzipped%n", format, items, bytes.length, gzip().length);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] writeGzipped() throws IOException {
+        return gzip();
+    }
+
+    @Benchmark
+    public Order read() throws IOException {
+        return objectMapper.readValue(bytes, Order.class);
+    }
+
+    private byte[] gzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, order);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,105 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.BenchmarkData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Mapping of entities to and from documents, with the converter configured as by Spring Boot. Orders are read the way
+ * {@link OrderDocumentReader} reads them: from documents without product references, setting already loaded products.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MongoMappingBenchmark {
+
+    private static final MappingMongoConverter CONVERTER = createConverter();
+
+    @State(Scope.Benchmark)
+    public static class Orders {
+
+        @Param({"1", "10", "100", "1000"})
+        int items;
+
+        Order order;
+        Document detachedDocument;
+        List<Object> productIds;
+        Map<String, Product> products;
+
+        @Setup
+        public void setUp() {
+            List<Product> productList = BenchmarkData.buildProducts();
+            order = BenchmarkData.buildOrder(items, productList);
+            Document document = new Document();
+            CONVERTER.write(order, document);
+            OrderDocumentReader.DetachedOrders detached = OrderDocumentReader.detach(List.of(document));
+            detachedDocument = detached.documents().get(0);
+            productIds = detached.productIdsByOrder().get(0);
+            products = productList.stream().collect(toMap(Product::getId, Function.identity()));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Products {
+
+        Product product;
+        Document document;
+
+        @Setup
+        public void setUp() {
+            product = BenchmarkData.buildProduct(1);
+            document = new Document();
+            CONVERTER.write(product, document);
+        }
+    }
+
+    @Benchmark
+    public Document writeOrder(Orders orders) {
+        Document document = new Document();
+        CONVERTER.write(orders.order, document);
+        return document;
+    }
+
+    @Benchmark
+    public List<Order> readOrder(Orders orders) {
+        return new OrderDocumentReader.DetachedOrders(List.of(orders.detachedDocument), List.of(orders.productIds))
+                .toOrders(CONVERTER, orders.products);
+    }
+
+    @Benchmark
+    public Document writeProduct(Products products) {
+        Document document = new Document();
+        CONVERTER.write(products.product, document);
+        return document;
+    }
+
+    @Benchmark
+    public Product readProduct(Products products) {
+        return CONVERTER.read(Product.class, products.document);
+    }
+
+    private static MappingMongoConverter createConverter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.setInitialEntitySet(Set.of(Order.class, Product.class));
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
@@ -0,0 +1,20 @@
+package com.kpliuta.demo;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration(proxyBeanMethods = false)
+public class MongoConfig {
+
+    @Bean
+    MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(MongoPoolProperties properties) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(properties.maxSize())
+                .minSize(properties.minSize())
+                .maxConnecting(properties.maxConnecting())
+                .maxWaitTime(properties.maxWaitTime().toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
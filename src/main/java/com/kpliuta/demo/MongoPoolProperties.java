@@ -0,0 +1,17 @@
+package com.kpliuta.demo;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Mongo driver connection pool settings.
+ *
+ * @param maxSize       maximum number of connections
+ * @param minSize       number of connections kept open when idle
+ * @param maxConnecting maximum number of connections being established concurrently
+ * @param maxWaitTime   time a request waits for a free connection before failing
+ */
+@ConfigurationProperties(prefix = "demo.mongodb.pool")
+public record MongoPoolProperties(int maxSize, int minSize, int maxConnecting, Duration maxWaitTime) {
+}
@@ -0,0 +1,241 @@
+package com.kpliuta.demo.cache;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.web.OrderSnapshots;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.mongodb.client.model.Filters.eq;
+
+/**
+ * Invalidates local cache entries on writes made by any node, following a database change stream. The resume token of
+ * the last handled change is persisted per node at most once per {@link ChangeStreamProperties#resumeTokenSaveInterval()}
+ * and on shutdown, so that a restarted node does not miss changes. A failed stream is resumed after a delay growing
+ * exponentially with consecutive failures, up to {@link ChangeStreamProperties#maxBackoff()}.
+ * <p>
+ * Products are followed on every write. Orders are followed on deletes only, as only remembered order versions are
+ * cached locally, by {@link OrderSnapshots}, which order updates never make stale since they increment the version.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "demo.cache.change-streams", name = "enabled", havingValue = "true")
+public class ChangeStreamCacheInvalidator implements SmartLifecycle {
+
+    static final String RESUME_TOKEN_COLLECTION = "changeStreamResumeToken";
+
+    /**
+     * Change stream history is no longer available for the resume token.
+     */
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private static final Duration SUBSCRIPTION_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final List<String> WRITE_OPERATION_TYPES = List.of(
+            OperationType.UPDATE.getValue(),
+            OperationType.REPLACE.getValue(),
+            OperationType.DELETE.getValue(),
+            OperationType.DROP.getValue());
+
+    private static final List<String> DELETE_OPERATION_TYPES = List.of(
+            OperationType.DELETE.getValue(),
+            OperationType.DROP.getValue());
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeStreamProperties properties;
+    private final TaskScheduler taskScheduler;
+    private final MessageListenerContainer container;
+    private final Map<String, LocalCache> caches;
+    private final AtomicInteger failures = new AtomicInteger();
+    /**
+     * Resume token of the last handled change, or null if none has been handled since the stream was (re)started.
+     */
+    private final AtomicReference<BsonDocument> resumeToken = new AtomicReference<>();
+    /**
+     * Resume token of the last handled change unless persisted already.
+     */
+    private final AtomicReference<BsonDocument> unsavedResumeToken = new AtomicReference<>();
+
+    private volatile boolean running;
+    private volatile Subscription subscription;
+    private volatile ScheduledFuture<?> resumption;
+    private ScheduledFuture<?> resumeTokenSaving;
+
+    public ChangeStreamCacheInvalidator(MongoTemplate mongoTemplate, ChangeStreamProperties properties,
+                                        ProductCache productCache, ObjectProvider<OrderSnapshots> orderSnapshots,
+                                        TaskExecutor applicationTaskExecutor, TaskScheduler taskScheduler) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+        this.container = new DefaultMessageListenerContainer(mongoTemplate, applicationTaskExecutor);
+        Map<String, LocalCache> caches = new HashMap<>();
+        caches.put(mongoTemplate.getCollectionName(Product.class),
+                new LocalCache(WRITE_OPERATION_TYPES, productCache::invalidate, productCache::invalidateAll));
+        // order versions are remembered by the servlet stack only
+        orderSnapshots.ifAvailable(snapshots -> caches.put(mongoTemplate.getCollectionName(Order.class),
+                new LocalCache(DELETE_OPERATION_TYPES, snapshots::invalidate, snapshots::invalidateAll)));
+        this.caches = Map.copyOf(caches);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        failures.set(0);
+        resumeToken.set(null);
+        container.start();
+        resumeTokenSaving = taskScheduler.scheduleWithFixedDelay(this::saveResumeToken,
+                properties.resumeTokenSaveInterval());
+        try {
+            // do not miss changes made right after startup
+            register(loadResumeToken()).await(SUBSCRIPTION_TIMEOUT);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ScheduledFuture<?> pendingResumption = resumption;
+        if (pendingResumption != null) {
+            pendingResumption.cancel(false);
+        }
+        // the container would start a stopped subscription again along with itself
+        container.remove(subscription);
+        container.stop();
+        resumeTokenSaving.cancel(false);
+        saveResumeToken();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private Subscription register(BsonValue resumeToken) {
+        List<Document> changes = caches.entrySet().stream()
+                .map(entry -> new Document("ns.coll", entry.getKey())
+                        .append("operationType", new Document("$in", entry.getValue().operationTypes())))
+                .toList();
+        ChangeStreamRequest.ChangeStreamRequestBuilder<Document> request = ChangeStreamRequest.builder(this::onChange)
+                .filter(new Document("$match", new Document("$or", changes)));
+        if (resumeToken != null) {
+            request.resumeAfter(resumeToken);
+        }
+        subscription = container.register(request.build(), Document.class, this::onError);
+        return subscription;
+    }
+
+    private void onChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> change = message.getRaw();
+        LocalCache cache = caches.get(change.getNamespace().getCollectionName());
+        if (change.getOperationType() == OperationType.DROP) {
+            cache.invalidateAll().run();
+        } else {
+            cache.invalidate().accept(toId(change.getDocumentKey().get("_id")));
+        }
+        failures.set(0);
+        resumeToken.set(change.getResumeToken());
+        unsavedResumeToken.set(change.getResumeToken());
+    }
+
+    private void onError(Throwable ex) {
+        if (!running) {
+            return;
+        }
+        // the failed subscription must not be started again along with the container
+        container.remove(subscription);
+        BsonValue token = resumeToken.get();
+        if (ex.getCause() instanceof MongoException mongoException
+                && mongoException.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+            // changes might have been missed, start over
+            log.warn("Change stream history lost, invalidating all caches");
+            caches.values().forEach(cache -> cache.invalidateAll().run());
+            resumeToken.set(null);
+            token = null;
+        } else {
+            if (token == null) {
+                token = loadResumeToken();
+            }
+            log.warn("Change stream failed, resuming", ex);
+        }
+        BsonValue resumeAfter = token;
+        resumption = taskScheduler.schedule(() -> {
+            if (running) {
+                register(resumeAfter);
+            }
+        }, Instant.now().plus(backoff(failures.getAndIncrement())));
+    }
+
+    /**
+     * @return delay before resuming the stream after given number of consecutive failures before the last one
+     */
+    private Duration backoff(int previousFailures) {
+        Duration backoff = properties.minBackoff().multipliedBy(1L << Math.min(previousFailures, 30));
+        return backoff.compareTo(properties.maxBackoff()) < 0 ? backoff : properties.maxBackoff();
+    }
+
+    private BsonValue loadResumeToken() {
+        Document document = mongoTemplate.getCollection(RESUME_TOKEN_COLLECTION)
+                .find(eq("_id", properties.nodeId()))
+                .first();
+        return document != null ? BsonDocument.parse(document.get("token", Document.class).toJson()) : null;
+    }
+
+    /**
+     * Persists the resume token of the last handled change, if not persisted yet.
+     */
+    private void saveResumeToken() {
+        BsonDocument token = unsavedResumeToken.getAndSet(null);
+        if (token == null) {
+            return;
+        }
+        try {
+            mongoTemplate.getCollection(RESUME_TOKEN_COLLECTION).replaceOne(eq("_id", properties.nodeId()),
+                    new Document("_id", properties.nodeId()).append("token", token),
+                    new ReplaceOptions().upsert(true));
+        } catch (RuntimeException ex) {
+            // retry with the next save unless a later change is to be saved
+            unsavedResumeToken.compareAndSet(null, token);
+            log.warn("Saving change stream resume token failed", ex);
+        }
+    }
+
+    private static String toId(BsonValue id) {
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    /**
+     * @param operationTypes types of the changes that make cache entries stale
+     */
+    private record LocalCache(List<String> operationTypes, Consumer<String> invalidate, Runnable invalidateAll) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.kpliuta.demo.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param enabled                 whether local caches are invalidated by database change streams
+ * @param nodeId                  ID of this node, keys the persisted resume token so that every node resumes its own
+ *                                stream
+ * @param resumeTokenSaveInterval minimum time between saves of the resume token, changes handled meanwhile are
+ *                                handled again after a crash
+ * @param minBackoff              delay before resuming a failed stream, doubled with every consecutive failure
+ * @param maxBackoff              maximum delay before resuming a failed stream
+ */
+@ConfigurationProperties(prefix = "demo.cache.change-streams")
+public record ChangeStreamProperties(boolean enabled, String nodeId, Duration resumeTokenSaveInterval,
+                                     Duration minBackoff, Duration maxBackoff) {
+}
@@ -0,0 +1,135 @@
+package com.kpliuta.demo.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Bounded read-through cache of products by ID. Removed products are cached as well, readers tell them apart by
+ * {@link Product#isRemoved()} without another query.
+ * <p>
+ * Products are cached as soon as their load starts, as a pending result of their own even if loaded along with others,
+ * so that {@link #invalidate(String)} drops a product being loaded as well and the loaded one is not cached. Readers
+ * get copies of cached products, which they are free to modify. Products are copied by the {@link MongoConverter}, as
+ * if written and read again, so that copies keep up with the mapped fields of products.
+ */
+@Component
+public class ProductCache {
+
+    private final ProductRepository productRepository;
+    private final MongoConverter mongoConverter;
+    private final AsyncCache<String, Product> cache;
+
+    public ProductCache(ProductRepository productRepository, MongoConverter mongoConverter,
+                        ProductCacheProperties properties, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.mongoConverter = mongoConverter;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                // loads run on the calling thread, as the blocking cache used to
+                .executor(Runnable::run)
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product");
+    }
+
+    /**
+     * Finds a product by given ID, loading it on a cache miss.
+     *
+     * @param id product ID
+     * @return product, if found
+     */
+    public Optional<Product> findById(String id) {
+        return Optional.ofNullable(join(cache.get(id, key -> productRepository.findById(key).orElse(null))))
+                .map(this::copy);
+    }
+
+    /**
+     * Finds products by given IDs, loading all missing ones with a single query.
+     *
+     * @param ids product IDs
+     * @return found products by ID
+     */
+    public Map<String, Product> findAllById(Collection<String> ids) {
+        return copy(join(cache.getAll(ids, missingIds -> productRepository.findAllById(List.copyOf(missingIds)).stream()
+                .collect(toMap(Product::getId, Function.identity())))));
+    }
+
+    /**
+     * Finds products by given IDs, loading all missing ones with a single load by the caller.
+     *
+     * @param ids    product IDs
+     * @param loader loads products missing by given IDs
+     * @return found products by ID, once loaded
+     */
+    public CompletableFuture<Map<String, Product>> findAllById(
+            Collection<String> ids, Function<Set<String>, CompletableFuture<Map<String, Product>>> loader) {
+        return cache.getAll(ids, (missingIds, executor) -> loader.apply(Set.copyOf(missingIds)))
+                .thenApply(this::copy);
+    }
+
+    /**
+     * Evicts a product, must be called whenever a product is written.
+     *
+     * @param id product ID
+     */
+    public void invalidate(String id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Evicts all products.
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * @return hit, miss and eviction counters
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * @return approximate number of cached products
+     */
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    private Map<String, Product> copy(Map<String, Product> products) {
+        Map<String, Product> copies = new HashMap<>();
+        products.forEach((id, product) -> copies.put(id, copy(product)));
+        return copies;
+    }
+
+    private Product copy(Product product) {
+        Document document = new Document();
+        mongoConverter.write(product, document);
+        return mongoConverter.read(Product.class, document);
+    }
+}
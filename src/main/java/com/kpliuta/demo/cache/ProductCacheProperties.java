@@ -0,0 +1,13 @@
+package com.kpliuta.demo.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param maxSize maximum number of cached products, {@code 0} disables caching
+ * @param ttl     time a product stays cached after it has been loaded
+ */
+@ConfigurationProperties(prefix = "demo.cache.product")
+public record ProductCacheProperties(long maxSize, Duration ttl) {
+}
@@ -0,0 +1,49 @@
+package com.kpliuta.demo.cache;
+
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.ReactiveProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking access to the {@link ProductCache}: cache misses are loaded with the {@link ReactiveProductRepository}
+ * instead of the cache's blocking loader, as pending results of the cache all the same.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveProductCache {
+
+    private final ProductCache productCache;
+    private final ReactiveProductRepository reactiveProductRepository;
+
+    /**
+     * Finds a product by given ID, loading it on a cache miss.
+     *
+     * @param id product ID
+     * @return product or empty if not found
+     */
+    public Mono<Product> findById(String id) {
+        return findAllById(List.of(id)).mapNotNull(products -> products.get(id));
+    }
+
+    /**
+     * Finds products by given IDs, loading all missing ones with a single query.
+     *
+     * @param ids product IDs
+     * @return found products by ID
+     */
+    public Mono<Map<String, Product>> findAllById(Collection<String> ids) {
+        // a cancelled read leaves the load to complete for other readers of the same products
+        return Mono.fromFuture(() -> productCache.findAllById(ids, missingIds -> reactiveProductRepository
+                .findAllById(missingIds)
+                .collectMap(Product::getId)
+                .toFuture()), true);
+    }
+}
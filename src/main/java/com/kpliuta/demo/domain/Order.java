@@ -1,12 +1,20 @@
 package com.kpliuta.demo.domain;
 
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Document
+@CompoundIndex(name = "customerId_id", def = "{ 'customerId' : 1, '_id' : 1 }")
+@CompoundIndex(name = "items.product", def = "{ 'items.product' : 1 }")
 @Data
 @EqualsAndHashCode(callSuper = true)
 @ToString(callSuper = true)
@@ -18,5 +26,13 @@ public class Order extends Entity {
     @NotNull
     private String customerId;
 
-    private List<OrderItem> items;
+    private List<@Valid OrderItem> items;
+
+    /**
+     * Sum of the item quantities multiplied by their unit prices, maintained by the server along with the items, a
+     * total sent by a client is ignored.
+     */
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal total;
 }
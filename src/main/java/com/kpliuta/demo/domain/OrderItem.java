@@ -1,8 +1,13 @@
 package com.kpliuta.demo.domain;
 
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import org.springframework.data.mongodb.core.mapping.DocumentReference;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
 
 @Getter
 @Setter
@@ -17,4 +22,11 @@ public class OrderItem {
     @DocumentReference
     @NotNull
     private Product product;
+
+    /**
+     * Price of the product when the item was first written, set by the server, a price sent by a client is ignored.
+     */
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal unitPrice;
 }
@@ -2,11 +2,20 @@ package com.kpliuta.demo.domain;
 
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 
 @Document
+@CompoundIndex(name = "removed_id", def = "{ 'removed' : 1, '_id' : 1 }", partialFilter = "{ 'removed' : false }")
+@CompoundIndex(name = "brand_price_id", def = "{ 'brand' : 1, 'price' : 1, '_id' : 1 }",
+        partialFilter = "{ 'removed' : false }")
+@CompoundIndex(name = "price_id", def = "{ 'price' : 1, '_id' : 1 }", partialFilter = "{ 'removed' : false }")
+@CompoundIndex(name = "removed_id_purge", def = "{ 'removed' : 1, '_id' : 1 }", partialFilter = "{ 'removed' : true }")
 @Data
 @EqualsAndHashCode(callSuper = true)
 @ToString(callSuper = true)
@@ -19,10 +28,16 @@ public class Product extends Entity {
     private String brand;
 
     @NotNull
+    @TextIndexed(weight = 2)
     private String name;
 
+    @TextIndexed
     private String description;
 
+    /**
+     * Stored as Decimal128 so that prices are compared and sorted numerically.
+     */
     @NotNull
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
 }
@@ -0,0 +1,13 @@
+package com.kpliuta.demo.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of the products of a brand over all orders.
+ *
+ * @param brand    brand, {@code null} for products that do not exist anymore
+ * @param quantity number of ordered products
+ * @param revenue  sum of the item quantities multiplied by their unit prices
+ */
+public record BrandRevenue(String brand, long quantity, BigDecimal revenue) {
+}
@@ -0,0 +1,50 @@
+package com.kpliuta.demo.repository;
+
+/**
+ * Outcome of writing a single entity of a bulk request.
+ *
+ * @param status  outcome
+ * @param id      entity ID, if known
+ * @param version entity version after the write, if written
+ * @param error   reason of a failure
+ */
+public record BulkItemResult(Status status, String id, Integer version, String error) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        NOT_FOUND,
+        VERSION_CONFLICT,
+        ALREADY_EXISTS,
+        INVALID,
+        FAILED
+    }
+
+    static BulkItemResult created(String id, Integer version) {
+        return new BulkItemResult(Status.CREATED, id, version, null);
+    }
+
+    static BulkItemResult updated(String id, Integer version) {
+        return new BulkItemResult(Status.UPDATED, id, version, null);
+    }
+
+    static BulkItemResult notFound(String id) {
+        return new BulkItemResult(Status.NOT_FOUND, id, null, null);
+    }
+
+    static BulkItemResult versionConflict(String id) {
+        return new BulkItemResult(Status.VERSION_CONFLICT, id, null, null);
+    }
+
+    static BulkItemResult alreadyExists(String id) {
+        return new BulkItemResult(Status.ALREADY_EXISTS, id, null, null);
+    }
+
+    public static BulkItemResult invalid(String id, String error) {
+        return new BulkItemResult(Status.INVALID, id, null, error);
+    }
+
+    static BulkItemResult failed(String id, String error) {
+        return new BulkItemResult(Status.FAILED, id, null, error);
+    }
+}
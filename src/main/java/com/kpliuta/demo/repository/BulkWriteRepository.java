@@ -0,0 +1,18 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Entity;
+
+import java.util.List;
+
+public interface BulkWriteRepository<T extends Entity> {
+
+    /**
+     * Inserts entities without a version and replaces entities with a version if their stored version matches,
+     * incrementing it. Takes two round trips regardless of the number of entities: a query for the stored versions and
+     * an unordered bulk write. A failure of one entity does not affect the others.
+     *
+     * @param entities entities of the same type
+     * @return results in the order of given entities
+     */
+    List<BulkItemResult> bulkWrite(List<T> entities);
+}
@@ -0,0 +1,165 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Entity;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.*;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.ID_FIELD;
+import static com.kpliuta.demo.repository.ConditionalUpdate.VERSION_FIELD;
+
+@RequiredArgsConstructor
+class BulkWriteRepositoryImpl<T extends Entity> implements BulkWriteRepository<T> {
+
+    /**
+     * Initial version of inserted entities, as assigned by {@code save}.
+     */
+    private static final int INITIAL_VERSION = 0;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<BulkItemResult> bulkWrite(List<T> entities) {
+        if (entities.isEmpty()) {
+            return List.of();
+        }
+        MongoCollection<Document> collection = mongoTemplate.getCollection(
+                mongoTemplate.getCollectionName(entities.get(0).getClass()));
+        List<Document> documents = entities.stream().map(this::toDocument).toList();
+        Map<Object, Object> storedVersions = findVersions(collection, documents.stream()
+                .filter(document -> document.get(VERSION_FIELD) != null)
+                .map(document -> document.get(ID_FIELD))
+                .toList());
+
+        BulkItemResult[] results = new BulkItemResult[documents.size()];
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        List<Integer> writtenIndexes = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            Object id = document.get(ID_FIELD);
+            Integer version = document.getInteger(VERSION_FIELD);
+            if (version == null) {
+                document.put(VERSION_FIELD, INITIAL_VERSION);
+                writes.add(new InsertOneModel<>(document));
+                writtenIndexes.add(i);
+                results[i] = BulkItemResult.created(id.toString(), INITIAL_VERSION);
+            } else if (!storedVersions.containsKey(id)) {
+                results[i] = BulkItemResult.notFound(String.valueOf(id));
+            } else if (!version.equals(storedVersions.get(id))) {
+                results[i] = BulkItemResult.versionConflict(id.toString());
+            } else {
+                // a plain replacement, an entity deleted meanwhile must not be inserted again
+                document.put(VERSION_FIELD, version + 1);
+                writes.add(new ReplaceOneModel<>(new Document(ID_FIELD, id).append(VERSION_FIELD, version), document));
+                writtenIndexes.add(i);
+                results[i] = BulkItemResult.updated(id.toString(), version + 1);
+            }
+        }
+        if (!writes.isEmpty()) {
+            write(collection, writes, writtenIndexes, documents, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private Document toDocument(T entity) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(entity, document);
+        if (document.get(ID_FIELD) == null) {
+            document.put(ID_FIELD, new ObjectId());
+        }
+        return document;
+    }
+
+    private static Map<Object, Object> findVersions(MongoCollection<Document> collection, List<Object> ids) {
+        Map<Object, Object> versions = new HashMap<>();
+        if (!ids.isEmpty()) {
+            collection.find(Filters.in(ID_FIELD, ids))
+                    .projection(Projections.include(VERSION_FIELD))
+                    .forEach(document -> versions.put(document.get(ID_FIELD), document.get(VERSION_FIELD)));
+        }
+        return versions;
+    }
+
+    private static void write(MongoCollection<Document> collection, List<WriteModel<Document>> writes,
+                              List<Integer> writtenIndexes, List<Document> documents, BulkItemResult[] results) {
+        BulkWriteResult result;
+        Set<Integer> failedWrites = new HashSet<>();
+        try {
+            result = collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException ex) {
+            for (BulkWriteError error : ex.getWriteErrors()) {
+                int index = writtenIndexes.get(error.getIndex());
+                String id = results[index].id();
+                failedWrites.add(error.getIndex());
+                if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                        && writes.get(error.getIndex()) instanceof InsertOneModel) {
+                    // an entity without a version but with the ID of a stored one
+                    results[index] = BulkItemResult.alreadyExists(id);
+                } else {
+                    results[index] = BulkItemResult.failed(id, error.getMessage());
+                }
+            }
+            result = ex.getWriteResult();
+        }
+        List<Integer> replacedIndexes = new ArrayList<>();
+        for (int i = 0; i < writes.size(); i++) {
+            if (writes.get(i) instanceof ReplaceOneModel && !failedWrites.contains(i)) {
+                replacedIndexes.add(writtenIndexes.get(i));
+            }
+        }
+        long unmatched = replacedIndexes.size() - result.getMatchedCount();
+        if (unmatched > 0) {
+            reportUnmatched(collection, replacedIndexes, unmatched, documents, results);
+        }
+    }
+
+    /**
+     * Tells the replacements that did not match, as the bulk write reports their number only, by reading the versions
+     * of the replaced entities again: an entity deleted after its version was read is not found, one modified
+     * meanwhile has another version. Only if the version of a replacement has been written by a concurrent update as
+     * well are the stored entities compared with the replacements.
+     *
+     * @param replacedIndexes indexes of the replaced entities
+     * @param unmatched       number of replacements that did not match
+     */
+    private static void reportUnmatched(MongoCollection<Document> collection, List<Integer> replacedIndexes,
+                                        long unmatched, List<Document> documents, BulkItemResult[] results) {
+        Map<Object, Object> versions = findVersions(collection, replacedIndexes.stream()
+                .map(index -> documents.get(index).get(ID_FIELD))
+                .toList());
+        List<Integer> writtenIndexes = new ArrayList<>();
+        for (int index : replacedIndexes) {
+            Document document = documents.get(index);
+            Object id = document.get(ID_FIELD);
+            if (!versions.containsKey(id)) {
+                results[index] = BulkItemResult.notFound(id.toString());
+            } else if (!document.get(VERSION_FIELD).equals(versions.get(id))) {
+                results[index] = BulkItemResult.versionConflict(id.toString());
+            } else {
+                writtenIndexes.add(index);
+            }
+        }
+        if (replacedIndexes.size() - writtenIndexes.size() < unmatched) {
+            Map<Object, Document> stored = new HashMap<>();
+            collection.find(Filters.in(ID_FIELD, writtenIndexes.stream()
+                            .map(index -> documents.get(index).get(ID_FIELD))
+                            .toList()))
+                    .forEach(document -> stored.put(document.get(ID_FIELD), document));
+            for (int index : writtenIndexes) {
+                Document document = documents.get(index);
+                if (!document.equals(stored.get(document.get(ID_FIELD)))) {
+                    results[index] = BulkItemResult.versionConflict(document.get(ID_FIELD).toString());
+                }
+            }
+        }
+    }
+}
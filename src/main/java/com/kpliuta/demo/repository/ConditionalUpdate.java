@@ -0,0 +1,102 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Entity;
+import com.kpliuta.demo.domain.Order;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import org.bson.Document;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.kpliuta.demo.repository.OrderDocumentReader.*;
+
+/**
+ * Replacement of an entity conditional on its stored version, shared by the blocking and the reactive repositories.
+ * Issue it as {@code findOneAndUpdate(filter(), pipeline(), options())} and pass the result to
+ * {@link #apply(Document)}. Orders keep the unit prices of their stored items, see
+ * {@link OrderPricing#priceReplacement(Order)}.
+ */
+final class ConditionalUpdate<T extends Entity> {
+
+    static final String ID_FIELD = "_id";
+    static final String VERSION_FIELD = "version";
+
+    /**
+     * Returns the stored version before the update: it matches the expected one only if the replacement was applied by
+     * this very update, regardless of concurrent updates.
+     */
+    private static final FindOneAndUpdateOptions OPTIONS = new FindOneAndUpdateOptions()
+            .projection(Projections.include(VERSION_FIELD))
+            .returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     * Also returns the stored prices, which the replacement of an order carries.
+     */
+    private static final FindOneAndUpdateOptions ORDER_OPTIONS = new FindOneAndUpdateOptions()
+            .projection(Projections.include(VERSION_FIELD, ITEMS_FIELD + "." + PRODUCT_FIELD,
+                    ITEMS_FIELD + "." + UNIT_PRICE_FIELD))
+            .returnDocument(ReturnDocument.BEFORE);
+
+    private final T entity;
+    private final Integer version;
+    private final Integer nextVersion;
+    private final Document filter;
+    private final List<Document> pipeline;
+
+    ConditionalUpdate(MongoConverter converter, T entity) {
+        this.entity = entity;
+        this.version = entity.getVersion();
+        this.nextVersion = version != null ? version + 1 : null;
+
+        Document replacement = new Document();
+        converter.write(entity, replacement);
+        replacement.put(VERSION_FIELD, nextVersion);
+
+        // replace the document only if the version matches, keep it as is otherwise
+        Document replaceIfVersionMatches = new Document("$replaceWith", new Document("$cond", List.of(
+                new Document("$eq", List.of("$" + VERSION_FIELD, version)),
+                entity instanceof Order
+                        ? OrderPricing.replacement(replacement)
+                        : new Document("$literal", replacement),
+                "$$ROOT")));
+
+        this.filter = new Document(ID_FIELD, replacement.get(ID_FIELD));
+        this.pipeline = List.of(replaceIfVersionMatches);
+    }
+
+    Document filter() {
+        return filter;
+    }
+
+    List<Document> pipeline() {
+        return pipeline;
+    }
+
+    FindOneAndUpdateOptions options() {
+        return entity instanceof Order ? ORDER_OPTIONS : OPTIONS;
+    }
+
+    /**
+     * Interprets the result of the update.
+     *
+     * @param previous document returned by the update, must not be {@code null}: no document means no entity with
+     *                 given ID
+     * @return updated entity with incremented version
+     * @throws OptimisticLockingFailureException if the stored version did not match
+     */
+    T apply(Document previous) {
+        if (!Objects.equals(version, previous.get(VERSION_FIELD))) {
+            throw new OptimisticLockingFailureException(String.format("Cannot update %s with ID %s and version %s",
+                    entity.getClass().getSimpleName(), entity.getId(), version));
+        }
+        entity.setVersion(nextVersion);
+        if (entity instanceof Order order) {
+            OrderPricing.carryStoredPrices(order, previous);
+        }
+        return entity;
+    }
+}
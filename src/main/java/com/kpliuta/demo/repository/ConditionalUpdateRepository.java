@@ -0,0 +1,19 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Entity;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.Optional;
+
+public interface ConditionalUpdateRepository<T extends Entity> {
+
+    /**
+     * Replaces an entity if its stored version matches the given entity's version, incrementing the version. Takes a
+     * single round trip, unlike looking the entity up before saving it.
+     *
+     * @param entity entity to replace, its version is incremented on success
+     * @return updated entity or empty if there is no entity with given ID
+     * @throws OptimisticLockingFailureException if the stored version does not match
+     */
+    Optional<T> update(T entity);
+}
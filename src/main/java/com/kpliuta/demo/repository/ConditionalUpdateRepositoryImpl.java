@@ -0,0 +1,21 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Entity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+class ConditionalUpdateRepositoryImpl<T extends Entity> implements ConditionalUpdateRepository<T> {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<T> update(T entity) {
+        ConditionalUpdate<T> update = new ConditionalUpdate<>(mongoTemplate.getConverter(), entity);
+        return Optional.ofNullable(mongoTemplate.getCollection(mongoTemplate.getCollectionName(entity.getClass()))
+                        .findOneAndUpdate(update.filter(), update.pipeline(), update.options()))
+                .map(update::apply);
+    }
+}
@@ -0,0 +1,13 @@
+package com.kpliuta.demo.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Spend of a customer over all orders.
+ *
+ * @param customerId customer ID
+ * @param orders     number of orders
+ * @param spend      sum of the order totals
+ */
+public record CustomerSpend(String customerId, long orders, BigDecimal spend) {
+}
@@ -0,0 +1,28 @@
+package com.kpliuta.demo.repository;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+
+/**
+ * Helper pushing a sparse fieldset down to a query as a projection.
+ */
+final class FieldProjection {
+
+    private FieldProjection() {
+    }
+
+    /**
+     * Restricts given query to given property paths. ID and version are always included, so that projected entities
+     * can still be paginated and tagged.
+     *
+     * @param fields property paths without overlapping ones, empty for all properties
+     * @return given query
+     */
+    static Query include(Query query, Collection<String> fields) {
+        if (!fields.isEmpty()) {
+            query.fields().include(fields.toArray(String[]::new)).include("id", "version");
+        }
+        return query;
+    }
+}
@@ -0,0 +1,171 @@
+package com.kpliuta.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Compares indexes declared on {@link Document} entities with the existing ones at startup, logging missing and extra
+ * indexes and creating the missing ones if enabled.
+ * <p>
+ * Existing indexes of a declared name are compared by their keys in order and by the options declarations affect
+ * (uniqueness, sparseness, expiry, partial filter and text weights and languages). Mismatching indexes are dropped and
+ * created again if enabled, otherwise startup fails, as queries would silently run without the declared index.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexInitializer implements ApplicationRunner {
+
+    private static final String ID_INDEX_NAME = "_id_";
+    private static final String TEXT_KEY = "_fts";
+    private static final String TEXT_KEY_SUFFIX = "_ftsx";
+    private static final String TEXT = "text";
+    private static final String WEIGHTS_OPTION = "weights";
+    // compared options with the values of indexes not listing them
+    private static final Map<String, Object> COMPARED_OPTIONS = Map.of(
+            "unique", false,
+            "sparse", false,
+            "expireAfterSeconds", "",
+            "partialFilterExpression", "");
+    private static final Map<String, Object> COMPARED_TEXT_OPTIONS = Map.of(
+            "default_language", "english",
+            "language_override", "language",
+            WEIGHTS_OPTION, "");
+
+    private final MongoTemplate mongoTemplate;
+    private final IndexProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        IndexResolver indexResolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        for (MongoPersistentEntity<?> entity : mongoTemplate.getConverter().getMappingContext().getPersistentEntities()) {
+            if (entity.isAnnotationPresent(Document.class)) {
+                initialize(entity, indexResolver.resolveIndexFor(entity.getType()));
+            }
+        }
+    }
+
+    private void initialize(MongoPersistentEntity<?> entity, Iterable<? extends IndexDefinition> indexDefinitions) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(entity.getCollection());
+
+        Map<String, IndexDefinition> declared = new LinkedHashMap<>();
+        indexDefinitions.forEach(definition -> declared.put(definition.getIndexOptions().getString("name"), definition));
+        Map<String, org.bson.Document> existingIndexes = new HashMap<>();
+        mongoTemplate.getCollection(entity.getCollection()).listIndexes()
+                .forEach(index -> existingIndexes.put(index.getString("name"), index));
+        Set<String> existing = existingIndexes.keySet().stream()
+                .filter(name -> !ID_INDEX_NAME.equals(name))
+                .collect(toSet());
+
+        Map<String, IndexDefinition> missing = declared.entrySet().stream()
+                .filter(entry -> !existing.contains(entry.getKey()))
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+        Set<String> extra = new TreeSet<>(existing);
+        extra.removeAll(declared.keySet());
+        Map<String, IndexDefinition> mismatching = declared.entrySet().stream()
+                .filter(entry -> existing.contains(entry.getKey()))
+                .filter(entry -> !spec(entry.getValue()).equals(spec(existingIndexes.get(entry.getKey()))))
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+
+        log.info("Collection '{}' indexes: declared {}, missing {}, mismatching {}, extra {}",
+                entity.getCollection(), declared.keySet(), missing.keySet(), mismatching.keySet(), extra);
+
+        if (!mismatching.isEmpty() && !properties.create()) {
+            throw new IllegalStateException(String.format("Indexes %s of collection '%s' do not match their "
+                    + "declarations", mismatching.keySet(), entity.getCollection()));
+        }
+        if (properties.create()) {
+            mismatching.forEach((name, definition) -> {
+                log.warn("Recreating index '{}' on collection '{}', declared {} but found {}", name,
+                        entity.getCollection(), spec(definition), spec(existingIndexes.get(name)));
+                indexOperations.dropIndex(name);
+                indexOperations.ensureIndex(definition);
+            });
+            missing.forEach((name, definition) -> {
+                log.info("Creating index '{}' on collection '{}'", name, entity.getCollection());
+                indexOperations.ensureIndex(definition);
+            });
+        }
+    }
+
+    /**
+     * @return keys and compared options of a declared index, as {@link #spec(org.bson.Document)} returns them
+     */
+    private static Map<String, Object> spec(IndexDefinition definition) {
+        org.bson.Document keys = definition.getIndexKeys();
+        org.bson.Document options = definition.getIndexOptions();
+        if (!keys.containsValue(TEXT)) {
+            return spec(keys, options);
+        }
+        // text indexes are listed with a single text key, weighted fields are listed by their weights, 1 by default
+        org.bson.Document textKeys = new org.bson.Document();
+        org.bson.Document weights = new org.bson.Document();
+        org.bson.Document declaredWeights = options.get(WEIGHTS_OPTION, new org.bson.Document());
+        keys.forEach((field, value) -> {
+            if (TEXT.equals(value)) {
+                textKeys.putIfAbsent(TEXT_KEY, TEXT);
+                textKeys.putIfAbsent(TEXT_KEY_SUFFIX, 1);
+                weights.put(field, declaredWeights.getOrDefault(field, 1));
+            } else {
+                textKeys.put(field, value);
+            }
+        });
+        org.bson.Document textOptions = new org.bson.Document(options);
+        textOptions.put(WEIGHTS_OPTION, weights);
+        return spec(textKeys, textOptions);
+    }
+
+    /**
+     * @param index index as listed by the server
+     * @return ordered keys and compared options, numbers are compared by value
+     */
+    private static Map<String, Object> spec(org.bson.Document index) {
+        return spec(index.get("key", org.bson.Document.class), index);
+    }
+
+    private static Map<String, Object> spec(org.bson.Document keys, org.bson.Document options) {
+        Map<String, Object> spec = new LinkedHashMap<>();
+        spec.put("key", normalize(keys));
+        Map<String, Object> comparedOptions = new TreeMap<>(COMPARED_OPTIONS);
+        if (keys.containsKey(TEXT_KEY)) {
+            comparedOptions.putAll(COMPARED_TEXT_OPTIONS);
+        }
+        comparedOptions.forEach((option, defaultValue) -> {
+            Object value = options.getOrDefault(option, defaultValue);
+            // weights are listed in no particular order
+            spec.put(option, normalize(value instanceof Map<?, ?> map && option.equals(WEIGHTS_OPTION)
+                    ? new TreeMap<>(map)
+                    : value));
+        });
+        return spec;
+    }
+
+    /**
+     * @return given value with documents as ordered lists of entries and numbers as doubles
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return map.entrySet().stream()
+                    .map(entry -> List.of(entry.getKey(), normalize(entry.getValue())))
+                    .toList();
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(IndexInitializer::normalize).toList();
+        }
+        return value instanceof Number number ? number.doubleValue() : value;
+    }
+}
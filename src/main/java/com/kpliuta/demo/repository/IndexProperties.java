@@ -0,0 +1,11 @@
+package com.kpliuta.demo.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @param create whether missing indexes are created and mismatching ones recreated at startup, otherwise missing
+ *               indexes are only reported and mismatching ones fail startup
+ */
+@ConfigurationProperties(prefix = "demo.mongodb.indexes")
+public record IndexProperties(boolean create) {
+}
@@ -0,0 +1,50 @@
+package com.kpliuta.demo.repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.ID_FIELD;
+
+/**
+ * Runs one-off data migrations at startup. A completed migration is recorded by a marker document in the
+ * {@value #COLLECTION} collection, later startups only look the marker up by its ID instead of scanning the migrated
+ * collection again. Nodes starting at the same time may both run a migration, which must therefore be idempotent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class Migrations {
+
+    static final String COLLECTION = "migrations";
+
+    private static final String COMPLETED_AT_FIELD = "completedAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Runs given migration unless it has completed before.
+     *
+     * @param name      migration name, the ID of its marker
+     * @param migration migration to run
+     * @return whether the migration ran
+     */
+    public boolean runOnce(String name, Runnable migration) {
+        MongoCollection<Document> markers = mongoTemplate.getCollection(COLLECTION);
+        Document marker = new Document(ID_FIELD, name);
+        if (markers.find(marker).first() != null) {
+            return false;
+        }
+        log.info("Running migration '{}'", name);
+        migration.run();
+        markers.replaceOne(marker, new Document(marker).append(COMPLETED_AT_FIELD, new Date()),
+                new ReplaceOptions().upsert(true));
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package com.kpliuta.demo.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param enabled      whether item operations on the same order are coalesced into a single update
+ * @param window       time the first operation on an order waits for further operations before writing them all
+ * @param maxBatchSize maximum number of operations written at once, further operations start another batch, from 1 to
+ *                     {@value #MAX_BATCH_SIZE}
+ */
+@ConfigurationProperties(prefix = "demo.order.coalescing")
+public record OrderCoalescingProperties(boolean enabled, Duration window, int maxBatchSize) {
+
+    /**
+     * Upper bound of {@link #maxBatchSize()}: a batch is written by an update pipeline with a stage per operation,
+     * which must stay well below the limit of 1000 stages of the server.
+     */
+    public static final int MAX_BATCH_SIZE = 500;
+
+    public OrderCoalescingProperties {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Max batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+    }
+}
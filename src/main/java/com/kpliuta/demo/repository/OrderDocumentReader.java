@@ -0,0 +1,151 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.cache.ProductCache;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Converts raw order documents to {@link Order} entities, resolving the {@link OrderItem#getProduct()} references of
+ * all given documents with a single {@code $in} query instead of one {@code @DocumentReference} lookup per item.
+ * Products are looked up in the {@link ProductCache} first, unless read for a scan of many orders. Removed products
+ * are dereferenced by ID only, so that their details are no longer exposed while orders keep referencing them.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderDocumentReader {
+
+    static final String ITEMS_FIELD = "items";
+    static final String PRODUCT_FIELD = "product";
+    static final String QUANTITY_FIELD = "quantity";
+    static final String UNIT_PRICE_FIELD = "unitPrice";
+    static final String TOTAL_FIELD = "total";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final ProductRepository productRepository;
+
+    /**
+     * Converts given order documents to entities.
+     *
+     * @param documents raw order documents, are modified by the conversion
+     * @return orders in the order of given documents
+     */
+    public List<Order> read(List<Document> documents) {
+        DetachedOrders orders = detach(documents);
+        return orders.toOrders(mongoTemplate.getConverter(), findProducts(orders.productIds()));
+    }
+
+    /**
+     * Converts given order documents to entities, querying their products without the {@link ProductCache}, so that
+     * scanning many orders does not evict the products of frequently read ones.
+     *
+     * @param documents raw order documents, are modified by the conversion
+     * @return orders in the order of given documents
+     */
+    public List<Order> readUncached(List<Document> documents) {
+        DetachedOrders orders = detach(documents);
+        Set<String> productIds = orders.productIds();
+        Map<String, Product> products = productIds.isEmpty() ? Map.of() : productRepository.findAllById(productIds)
+                .stream()
+                .collect(toMap(Product::getId, Function.identity()));
+        return orders.toOrders(mongoTemplate.getConverter(), products);
+    }
+
+    private Map<String, Product> findProducts(Collection<String> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return productCache.findAllById(productIds);
+    }
+
+    /**
+     * Removes product references from the items of given documents, so that the converter does not resolve them one
+     * by one.
+     *
+     * @param documents raw order documents, are modified
+     * @return documents along with their product IDs
+     */
+    static DetachedOrders detach(List<Document> documents) {
+        return new DetachedOrders(documents, documents.stream().map(OrderDocumentReader::detachProductIds).toList());
+    }
+
+    /**
+     * @return product IDs in the order of items
+     */
+    private static List<Object> detachProductIds(Document document) {
+        List<Object> productIds = new ArrayList<>();
+        List<?> items = document.get(ITEMS_FIELD, List.class);
+        if (items != null) {
+            for (Object item : items) {
+                productIds.add(item instanceof Document itemDocument ? itemDocument.remove(PRODUCT_FIELD) : null);
+            }
+        }
+        return productIds;
+    }
+
+    /**
+     * Order documents without product references, along with the removed references in the order of items.
+     */
+    record DetachedOrders(List<Document> documents, List<List<Object>> productIdsByOrder) {
+
+        /**
+         * @return distinct IDs of products referenced by all orders
+         */
+        Set<String> productIds() {
+            return productIdsByOrder.stream()
+                    .flatMap(List::stream)
+                    .filter(Objects::nonNull)
+                    .map(Object::toString)
+                    .collect(toCollection(LinkedHashSet::new));
+        }
+
+        /**
+         * Converts the documents to entities, setting the products referenced by their items.
+         *
+         * @param products products by ID, missing ones are set to {@code null} and removed ones to a reference
+         */
+        List<Order> toOrders(MongoConverter converter, Map<String, Product> products) {
+            List<Order> orders = new ArrayList<>(documents.size());
+            for (int i = 0; i < documents.size(); i++) {
+                orders.add(toOrder(converter, documents.get(i), productIdsByOrder.get(i), products));
+            }
+            return orders;
+        }
+
+        private static Order toOrder(MongoConverter converter, Document document, List<Object> productIds,
+                                     Map<String, Product> products) {
+            Order order = converter.read(Order.class, document);
+            List<OrderItem> items = order.getItems();
+            for (int i = 0; items != null && i < items.size(); i++) {
+                Object productId = productIds.get(i);
+                items.get(i).setProduct(productId != null ? dereference(products.get(productId.toString())) : null);
+            }
+            return order;
+        }
+
+        /**
+         * @return given product or, if removed, a product with its ID only
+         */
+        private static Product dereference(Product product) {
+            if (product == null || !product.isRemoved()) {
+                return product;
+            }
+            Product reference = new Product();
+            reference.setId(product.getId());
+            reference.setRemoved(true);
+            return reference;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.VERSION_FIELD;
+import static com.kpliuta.demo.repository.OrderDocumentReader.*;
+
+/**
+ * Writes item operations as {@link OrderRepositoryCustom#addItem(String, OrderItem)},
+ * {@link OrderRepositoryCustom#removeItem(String, int)} and {@link OrderRepositoryCustom#removeItems(String, String)}
+ * do, coalescing the operations on the same order if enabled. The first operation on an order then waits for
+ * {@link OrderCoalescingProperties#window()} and writes all operations on the order submitted meanwhile with a single
+ * update, in the order they were submitted, on behalf of their callers. Each caller gets the order as updated by the
+ * whole batch, or nothing if its own operation did not apply, as if the operations were written one by one.
+ */
+@Component
+public class OrderItemCoalescer {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderRepository orderRepository;
+    private final OrderDocumentReader orderDocumentReader;
+    private final OrderCoalescingProperties properties;
+    private final DistributionSummary batchSizeSummary;
+    private final ConcurrentMap<String, Batch> batches = new ConcurrentHashMap<>();
+
+    public OrderItemCoalescer(MongoTemplate mongoTemplate, OrderRepository orderRepository,
+                              OrderDocumentReader orderDocumentReader, OrderCoalescingProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderRepository = orderRepository;
+        this.orderDocumentReader = orderDocumentReader;
+        this.properties = properties;
+        this.batchSizeSummary = DistributionSummary.builder("demo.order.coalescing.batch.size")
+                .description("Item operations written by a single coalesced order update")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @see OrderRepositoryCustom#addItem(String, OrderItem)
+     */
+    public Optional<Order> addItem(String id, OrderItem item) {
+        if (!properties.enabled()) {
+            return orderRepository.addItem(id, item);
+        }
+        Object itemDocument = mongoTemplate.getConverter()
+                .convertToMongoType(item, TypeInformation.of(OrderItem.class));
+        return submit(id, new OrderItemOperation.Add((Document) itemDocument));
+    }
+
+    /**
+     * @see OrderRepositoryCustom#removeItem(String, int)
+     */
+    public Optional<Order> removeItem(String id, int index) {
+        return properties.enabled()
+                ? submit(id, new OrderItemOperation.Remove(index))
+                : orderRepository.removeItem(id, index);
+    }
+
+    /**
+     * @see OrderRepositoryCustom#removeItems(String, String)
+     */
+    public Optional<Order> removeItems(String id, String productId) {
+        return properties.enabled()
+                ? submit(id, new OrderItemOperation.RemoveProduct(
+                OrderItemUpdate.toObjectId(mongoTemplate.getConverter(), productId)))
+                : orderRepository.removeItems(id, productId);
+    }
+
+    private Optional<Order> submit(String id, OrderItemOperation operation) {
+        CompletableFuture<Optional<Order>> result = new CompletableFuture<>();
+        // the batch is read only while mapped, so that whether this operation starts it is decided along with adding it
+        boolean[] leader = new boolean[1];
+        Batch batch = batches.compute(id, (key, current) -> {
+            Batch next = current == null || current.operations.size() >= properties.maxBatchSize()
+                    ? new Batch()
+                    : current;
+            leader[0] = next.operations.isEmpty();
+            next.add(operation, result);
+            return next;
+        });
+        if (leader[0]) {
+            pause();
+            // the batch is no longer joined once removed, or once replaced by another batch as it was full
+            batches.remove(id, batch);
+            write(id, batch);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    private void write(String id, Batch batch) {
+        batchSizeSummary.record(batch.operations.size());
+        try {
+            List<Optional<Order>> results = apply(id, batch.operations);
+            for (int i = 0; i < results.size(); i++) {
+                batch.results.get(i).complete(results.get(i));
+            }
+        } catch (Throwable ex) {
+            // other callers must not wait forever whatever went wrong, the leader gets the failure through its result
+            batch.results.forEach(result -> result.completeExceptionally(ex));
+        }
+    }
+
+    /**
+     * @return results of given operations
+     */
+    private List<Optional<Order>> apply(String id, List<OrderItemOperation> operations) {
+        OrderItemUpdate update = OrderItemUpdate.coalesce(mongoTemplate.getConverter(), id, operations);
+        Document before = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .findOneAndUpdate(update.filter(), update.pipeline(), OrderItemUpdate.COALESCED_OPTIONS);
+        if (before == null) {
+            return Collections.nCopies(operations.size(), Optional.empty());
+        }
+
+        // replay the update
+        Object storedItems = before.get(ITEMS_FIELD);
+        List<Object> items = storedItems instanceof List<?> list ? new ArrayList<>(list) : new ArrayList<>();
+        boolean[] applied = new boolean[operations.size()];
+        for (int i = 0; i < operations.size(); i++) {
+            applied[i] = operations.get(i).apply(items);
+        }
+        Document after = new Document(before);
+        if (!items.equals(storedItems)) {
+            after.put(ITEMS_FIELD, items);
+            after.put(VERSION_FIELD, before.getInteger(VERSION_FIELD) + 1);
+        }
+        after.put(TOTAL_FIELD, total(items));
+
+        Optional<Order> order = Optional.of(orderDocumentReader.read(List.of(after)).get(0));
+        List<Optional<Order>> results = new ArrayList<>(operations.size());
+        for (boolean operationApplied : applied) {
+            results.add(operationApplied ? order : Optional.empty());
+        }
+        return results;
+    }
+
+    /**
+     * @return total as computed by {@link OrderItemUpdate#TOTAL}
+     */
+    private static Decimal128 total(List<Object> items) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Object item : items) {
+            if (item instanceof Document document && document.get(UNIT_PRICE_FIELD) instanceof Decimal128 unitPrice) {
+                total = total.add(unitPrice.bigDecimalValue()
+                        .multiply(BigDecimal.valueOf(document.getInteger(QUANTITY_FIELD, 0))));
+            }
+        }
+        return new Decimal128(total);
+    }
+
+    /**
+     * Waits for further operations. An interrupted wait writes the batch right away, as other callers wait for it.
+     */
+    private void pause() {
+        try {
+            Thread.sleep(properties.window());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Operations on an order along with the results their callers wait for, modified and read by the callers only while
+     * mapped.
+     */
+    private static final class Batch {
+
+        private final List<OrderItemOperation> operations = new ArrayList<>();
+        private final List<CompletableFuture<Optional<Order>>> results = new ArrayList<>();
+
+        void add(OrderItemOperation operation, CompletableFuture<Optional<Order>> result) {
+            operations.add(operation);
+            results.add(result);
+        }
+    }
+}
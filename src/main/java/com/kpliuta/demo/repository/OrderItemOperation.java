@@ -0,0 +1,94 @@
+package com.kpliuta.demo.repository;
+
+import org.bson.Document;
+
+import java.util.List;
+
+import static com.kpliuta.demo.repository.OrderDocumentReader.PRODUCT_FIELD;
+
+/**
+ * Item operation of a coalesced order update, see {@link OrderItemCoalescer}. Operations are applied in sequence by
+ * the database, an operation that does not apply leaves the items unchanged. They are replayed on the items of the
+ * order as before the update, which tells the operations that did not apply and yields the updated items without
+ * reading the order again.
+ */
+sealed interface OrderItemOperation {
+
+    /**
+     * @param items expression of the items before this operation
+     * @return expression of the items after this operation
+     */
+    Object expression(String items);
+
+    /**
+     * @param items item documents before this operation, are modified
+     * @return whether this operation applied
+     */
+    boolean apply(List<Object> items);
+
+    /**
+     * Appends an item, which must have been priced with {@link OrderPricing}.
+     *
+     * @param item item document
+     */
+    record Add(Document item) implements OrderItemOperation {
+
+        @Override
+        public Object expression(String items) {
+            return new Document("$concatArrays", List.of(items, List.of(new Document("$literal", item))));
+        }
+
+        @Override
+        public boolean apply(List<Object> items) {
+            items.add(item);
+            return true;
+        }
+    }
+
+    /**
+     * Removes an item at given position, applies only if there is such an item.
+     */
+    record Remove(int index) implements OrderItemOperation {
+
+        @Override
+        public Object expression(String items) {
+            Document size = new Document("$size", items);
+            return new Document("$cond", List.of(
+                    new Document("$gt", List.of(size, index)),
+                    new Document("$concatArrays", List.of(
+                            new Document("$slice", List.of(items, index)),
+                            new Document("$slice", List.of(items, index + 1, size)))),
+                    items));
+        }
+
+        @Override
+        public boolean apply(List<Object> items) {
+            if (index >= items.size()) {
+                return false;
+            }
+            items.remove(index);
+            return true;
+        }
+    }
+
+    /**
+     * Removes all items referencing a product, applies only if there are such items.
+     *
+     * @param productId product ID in its stored representation
+     */
+    record RemoveProduct(Object productId) implements OrderItemOperation {
+
+        @Override
+        public Object expression(String items) {
+            return new Document("$filter", new Document("input", items)
+                    .append("cond", new Document("$ne", List.of("$$this." + PRODUCT_FIELD,
+                            new Document("$literal", productId)))));
+        }
+
+        @Override
+        public boolean apply(List<Object> items) {
+            return items.removeIf(item -> item instanceof Document document
+                    && productId.equals(document.get(PRODUCT_FIELD)));
+        }
+    }
+}
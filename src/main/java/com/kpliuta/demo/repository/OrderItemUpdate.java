@@ -0,0 +1,125 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.OrderItem;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.util.TypeInformation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.ID_FIELD;
+import static com.kpliuta.demo.repository.ConditionalUpdate.VERSION_FIELD;
+import static com.kpliuta.demo.repository.OrderDocumentReader.*;
+
+/**
+ * Atomic update of the items of an order that increments its version regardless of the version the caller has seen
+ * and recomputes its total from the unit prices of the items, shared by the blocking and the reactive repositories.
+ * Issue it as {@code findOneAndUpdate(filter(), pipeline(), OPTIONS)}, no document is returned if the order or the item
+ * is not found.
+ */
+record OrderItemUpdate(Document filter, List<Document> pipeline) {
+
+    static final FindOneAndUpdateOptions OPTIONS = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+
+    /**
+     * Options of a {@link #coalesce(MongoConverter, String, List)} update, which returns the order as before it.
+     */
+    static final FindOneAndUpdateOptions COALESCED_OPTIONS = new FindOneAndUpdateOptions()
+            .returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     * Holds the coalesced items during the update, so that they are compared with the stored ones.
+     */
+    private static final String COALESCED_ITEMS_FIELD = "coalescedItems";
+
+    private static final String ITEMS = "$" + ITEMS_FIELD;
+    private static final Document INCREMENT_VERSION = new Document("$add", List.of("$" + VERSION_FIELD, 1));
+
+    /**
+     * Expression of the order total: the sum of the unit prices of the items multiplied by their quantities, unpriced
+     * items are ignored.
+     */
+    static final Document TOTAL = total(ITEMS);
+
+    /**
+     * Appends an item, which must have been priced with {@link OrderPricing}.
+     */
+    static OrderItemUpdate addItem(MongoConverter converter, String id, OrderItem item) {
+        Object itemDocument = converter.convertToMongoType(item, TypeInformation.of(OrderItem.class));
+        Document items = new Document("$concatArrays", List.of(
+                new Document("$ifNull", List.of(ITEMS, List.of())),
+                List.of(new Document("$literal", itemDocument))));
+        return new OrderItemUpdate(new Document(ID_FIELD, toObjectId(converter, id)), setItems(items));
+    }
+
+    /**
+     * Removes an item at given position, matches only orders having such an item.
+     */
+    static OrderItemUpdate removeItem(MongoConverter converter, String id, int index) {
+        Document filter = new Document(ID_FIELD, toObjectId(converter, id))
+                .append(ITEMS_FIELD + "." + index, new Document("$exists", true));
+        Document items = new Document("$concatArrays", List.of(
+                new Document("$slice", List.of(ITEMS, index)),
+                new Document("$slice", List.of(ITEMS, index + 1, new Document("$size", ITEMS)))));
+        return new OrderItemUpdate(filter, setItems(items));
+    }
+
+    /**
+     * Removes all items referencing given product, matches only orders having such items.
+     */
+    static OrderItemUpdate removeItems(MongoConverter converter, String id, String productId) {
+        Object productObjectId = toObjectId(converter, productId);
+        Document filter = new Document(ID_FIELD, toObjectId(converter, id))
+                .append(ITEMS_FIELD + "." + PRODUCT_FIELD, productObjectId);
+        Document items = new Document("$filter", new Document("input", ITEMS)
+                .append("cond", new Document("$ne", List.of("$$this." + PRODUCT_FIELD,
+                        new Document("$literal", productObjectId)))));
+        return new OrderItemUpdate(filter, setItems(items));
+    }
+
+    /**
+     * Applies given operations in sequence. Matches the order even if none of the operations applies, in which case
+     * its version is kept.
+     */
+    static OrderItemUpdate coalesce(MongoConverter converter, String id, List<OrderItemOperation> operations) {
+        String coalescedItems = "$" + COALESCED_ITEMS_FIELD;
+        List<Document> pipeline = new ArrayList<>(operations.size() + 4);
+        pipeline.add(new Document("$set", new Document(COALESCED_ITEMS_FIELD,
+                new Document("$ifNull", List.of(ITEMS, List.of())))));
+        // a stage per operation reading the items of the previous one keeps the update flat whatever the batch size
+        for (OrderItemOperation operation : operations) {
+            pipeline.add(new Document("$set", new Document(COALESCED_ITEMS_FIELD,
+                    operation.expression(coalescedItems))));
+        }
+        Document version = new Document("$cond", List.of(new Document("$eq", List.of(coalescedItems, ITEMS)),
+                "$" + VERSION_FIELD, INCREMENT_VERSION));
+        pipeline.add(new Document("$set", new Document(ITEMS_FIELD, coalescedItems).append(VERSION_FIELD, version)));
+        pipeline.add(new Document("$set", new Document(TOTAL_FIELD, TOTAL)));
+        pipeline.add(new Document("$unset", COALESCED_ITEMS_FIELD));
+        return new OrderItemUpdate(new Document(ID_FIELD, toObjectId(converter, id)), pipeline);
+    }
+
+    private static List<Document> setItems(Document items) {
+        // a stage sees the fields as before it, so the total of the new items is computed by a second one
+        return List.of(new Document("$set", new Document(ITEMS_FIELD, items).append(VERSION_FIELD, INCREMENT_VERSION)),
+                new Document("$set", new Document(TOTAL_FIELD, TOTAL)));
+    }
+
+    /**
+     * @param items expression of the items
+     * @return expression of the total of given items, see {@link #TOTAL}
+     */
+    static Document total(String items) {
+        return new Document("$toDecimal", new Document("$sum", new Document("$map",
+                new Document("input", items).append("in", new Document("$multiply",
+                        List.of("$$this." + UNIT_PRICE_FIELD, "$$this." + QUANTITY_FIELD))))));
+    }
+
+    static Object toObjectId(MongoConverter converter, String id) {
+        return converter.convertId(id, ObjectId.class);
+    }
+}
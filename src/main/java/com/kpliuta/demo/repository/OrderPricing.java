@@ -0,0 +1,345 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.cache.ProductCache;
+import com.kpliuta.demo.domain.Entity;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.ID_FIELD;
+import static com.kpliuta.demo.repository.OrderDocumentReader.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Snapshots the current prices of the products referenced by order items into {@link OrderItem#getUnitPrice()} and
+ * sums them up into {@link Order#getTotal()}, so that stored orders can be valued, sorted and filtered without reading
+ * products. Must be applied to orders and items before they are written. Products are looked up in the
+ * {@link ProductCache} first, missing ones with a single query for all given orders.
+ * <p>
+ * Orders replacing stored ones keep the unit prices already snapshotted: an item keeps the unit price of the stored
+ * item of the same product at the same rank among the items of that product, only items beyond the stored ones are
+ * priced at the current prices. The stored prices of all given orders are read with a single query, unless the order
+ * is priced with {@link #priceReplacement(Order)}, whose conditional update carries the stored prices itself.
+ * <p>
+ * Items to price at the current prices must not reference removed products, otherwise a
+ * {@link RemovedProductException} is thrown, so that a removed product is not referenced again and kept from being
+ * purged. Only orders priced in bulk leave such items unpriced instead, so that a single item does not fail a batch.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderPricing {
+
+    private final ProductCache productCache;
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * @param order order to price, is modified
+     * @return given order
+     */
+    public Order price(Order order) {
+        price(List.of(order), true);
+        return order;
+    }
+
+    /**
+     * @param orders orders to price, are modified
+     * @return given orders
+     */
+    public List<Order> price(List<Order> orders) {
+        return price(orders, false);
+    }
+
+    private List<Order> price(List<Order> orders, boolean rejectRemoved) {
+        Query storedPricesQuery = storedPricesQuery(mongoTemplate.getConverter(), orders);
+        Map<String, Map<String, List<BigDecimal>>> storedPrices = storedPricesQuery == null
+                ? Map.of()
+                : storedPrices(mongoTemplate.find(storedPricesQuery, Document.class,
+                mongoTemplate.getCollectionName(Order.class)));
+        return price(orders, storedPrices, rejectRemoved);
+    }
+
+    /**
+     * Prices an order to be written with {@link ConditionalUpdateRepository#update(Entity)}, which keeps the unit
+     * prices of the stored items within the update, see {@link #replacement(Document)}. Items are priced at the current
+     * prices here, which apply to the items the stored order has no price for, no order is read unless an item
+     * references a removed product: the stored order is read then, to tell the items it has a price for.
+     *
+     * @param order order to price, is modified
+     * @return given order
+     */
+    public Order priceReplacement(Order order) {
+        List<OrderItem> items = nullToEmpty(order.getItems());
+        Set<String> productIds = productIds(List.of(items));
+        Map<String, Product> products = productIds.isEmpty() ? Map.of() : productCache.findAllById(productIds);
+        if (referencesRemoved(items, products)) {
+            return price(order);
+        }
+        price(order, items, products);
+        return order;
+    }
+
+    /**
+     * Prices an order replacing given stored order, which is not read again.
+     *
+     * @param order  order to price, is modified
+     * @param stored stored version of the order
+     * @return given order
+     */
+    public Order price(Order order, Order stored) {
+        Map<String, List<BigDecimal>> storedPrices = new HashMap<>();
+        for (OrderItem item : nullToEmpty(stored.getItems())) {
+            String productId = productId(item);
+            if (productId != null) {
+                storedPrices.computeIfAbsent(productId, key -> new ArrayList<>()).add(item.getUnitPrice());
+            }
+        }
+        price(List.of(order), Collections.singletonMap(order.getId(), storedPrices), true);
+        return order;
+    }
+
+    private List<Order> price(List<Order> orders, Map<String, Map<String, List<BigDecimal>>> storedPrices,
+                              boolean rejectRemoved) {
+        List<List<OrderItem>> unpricedItems = orders.stream()
+                .map(order -> carryPrices(order, order.getId() != null ? storedPrices.get(order.getId()) : null))
+                .toList();
+        Set<String> productIds = productIds(unpricedItems);
+        Map<String, Product> products = productIds.isEmpty() ? Map.of() : productCache.findAllById(productIds);
+        if (rejectRemoved) {
+            unpricedItems.forEach(items -> rejectRemoved(items, products));
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            price(orders.get(i), unpricedItems.get(i), products);
+        }
+        return orders;
+    }
+
+    /**
+     * Prices an item to be added to a stored order, whose total is then maintained by the update.
+     *
+     * @param item item to price, is modified
+     * @return given item
+     */
+    public OrderItem price(OrderItem item) {
+        String productId = productId(item);
+        Product product = productId != null ? productCache.findById(productId).orElse(null) : null;
+        rejectRemoved(item, product);
+        price(item, product);
+        return item;
+    }
+
+    /**
+     * @return query of the stored unit prices of given orders or {@code null} if none of them has an ID
+     */
+    static Query storedPricesQuery(MongoConverter converter, Collection<Order> orders) {
+        List<Object> ids = orders.stream()
+                .map(Order::getId)
+                .filter(Objects::nonNull)
+                .map(id -> OrderItemUpdate.toObjectId(converter, id))
+                .toList();
+        if (ids.isEmpty()) {
+            return null;
+        }
+        Query query = Query.query(where(ID_FIELD).in(ids));
+        query.fields().include(ITEMS_FIELD + "." + PRODUCT_FIELD, ITEMS_FIELD + "." + UNIT_PRICE_FIELD);
+        return query;
+    }
+
+    /**
+     * @param documents order documents read by {@link #storedPricesQuery(MongoConverter, Collection)}
+     * @return unit prices of the stored items by product ID in item order, by order ID
+     */
+    static Map<String, Map<String, List<BigDecimal>>> storedPrices(List<Document> documents) {
+        Map<String, Map<String, List<BigDecimal>>> storedPrices = new HashMap<>();
+        for (Document document : documents) {
+            Map<String, List<BigDecimal>> prices = new HashMap<>();
+            for (Object item : document.getList(ITEMS_FIELD, Object.class, List.of())) {
+                if (item instanceof Document itemDocument && itemDocument.get(PRODUCT_FIELD) != null) {
+                    Object unitPrice = itemDocument.get(UNIT_PRICE_FIELD);
+                    prices.computeIfAbsent(itemDocument.get(PRODUCT_FIELD).toString(), key -> new ArrayList<>())
+                            .add(unitPrice instanceof Decimal128 decimal ? decimal.bigDecimalValue() : null);
+                }
+            }
+            storedPrices.put(document.get(ID_FIELD).toString(), prices);
+        }
+        return storedPrices;
+    }
+
+    /**
+     * Builds the expression of an order document replacing the stored one, which carries the unit prices of the
+     * stored items as {@link #carryPrices(Order, Map)} does and sums up the total accordingly. The stored items of each
+     * product are filtered once, an item then picks the one at its rank.
+     *
+     * @param replacement order document priced with {@link #priceReplacement(Order)}
+     * @return replacement expression, evaluated against the stored order
+     */
+    static Object replacement(Document replacement) {
+        List<Object> items = replacement.getList(ITEMS_FIELD, Object.class);
+        if (items == null || items.isEmpty()) {
+            return new Document("$literal", replacement);
+        }
+        Map<Object, String> storedItemsVariables = new LinkedHashMap<>();
+        Map<Object, Integer> ranks = new HashMap<>();
+        List<Object> itemExpressions = new ArrayList<>(items.size());
+        for (Object item : items) {
+            Object productId = item instanceof Document itemDocument ? itemDocument.get(PRODUCT_FIELD) : null;
+            if (productId == null) {
+                itemExpressions.add(new Document("$literal", item));
+                continue;
+            }
+            String storedItems = storedItemsVariables.computeIfAbsent(productId,
+                    key -> "stored" + storedItemsVariables.size());
+            int rank = ranks.merge(productId, 1, Integer::sum) - 1;
+            Document storedPrice = new Document("$getField", new Document("field", UNIT_PRICE_FIELD)
+                    .append("input", new Document("$arrayElemAt", List.of("$$" + storedItems, rank))));
+            // an item left unpriced is written without a unit price, as by the converter
+            Object unitPrice = ((Document) item).get(UNIT_PRICE_FIELD);
+            Object currentPrice = unitPrice != null ? new Document("$literal", unitPrice) : "$$REMOVE";
+            itemExpressions.add(new Document("$mergeObjects", List.of(new Document("$literal", item),
+                    new Document(UNIT_PRICE_FIELD, new Document("$ifNull", List.of(storedPrice, currentPrice))))));
+        }
+
+        Document fields = new Document(replacement);
+        fields.remove(ITEMS_FIELD);
+        fields.remove(TOTAL_FIELD);
+        Document pricedReplacement = new Document("$let", new Document("vars", new Document("items", itemExpressions))
+                .append("in", new Document("$mergeObjects", List.of(new Document("$literal", fields),
+                        new Document(ITEMS_FIELD, "$$items").append(TOTAL_FIELD, OrderItemUpdate.total("$$items"))))));
+        if (storedItemsVariables.isEmpty()) {
+            return pricedReplacement;
+        }
+        Document storedItems = new Document();
+        storedItemsVariables.forEach((productId, variable) -> storedItems.append(variable, new Document("$filter",
+                new Document("input", new Document("$ifNull", List.of("$" + ITEMS_FIELD, List.of())))
+                        .append("cond", new Document("$eq", List.of("$$this." + PRODUCT_FIELD,
+                                new Document("$literal", productId)))))));
+        return new Document("$let", new Document("vars", storedItems).append("in", pricedReplacement));
+    }
+
+    /**
+     * Applies the prices carried by a {@link #replacement(Document)} to the written order, without reading it again.
+     *
+     * @param order    order priced with {@link #priceReplacement(Order)}, is modified
+     * @param previous stored order as before the update, with the products and unit prices of its items
+     */
+    static void carryStoredPrices(Order order, Document previous) {
+        carryPrices(order, storedPrices(List.of(previous)).get(previous.get(ID_FIELD).toString()));
+        price(order, List.of(), Map.of());
+    }
+
+    /**
+     * Sets the stored unit prices of the items of given order. Items of unpriced stored items are priced again.
+     *
+     * @param storedPrices unit prices of the stored items by product ID or {@code null} if the order is not stored
+     * @return items left to price
+     */
+    static List<OrderItem> carryPrices(Order order, Map<String, List<BigDecimal>> storedPrices) {
+        if (storedPrices == null) {
+            return nullToEmpty(order.getItems());
+        }
+        Map<String, Iterator<BigDecimal>> remainingPrices = new HashMap<>();
+        List<OrderItem> unpricedItems = new ArrayList<>();
+        for (OrderItem item : nullToEmpty(order.getItems())) {
+            String productId = productId(item);
+            Iterator<BigDecimal> prices = productId != null && storedPrices.containsKey(productId)
+                    ? remainingPrices.computeIfAbsent(productId, key -> storedPrices.get(key).iterator())
+                    : Collections.emptyIterator();
+            BigDecimal storedPrice = prices.hasNext() ? prices.next() : null;
+            if (storedPrice != null) {
+                item.setUnitPrice(storedPrice);
+            } else {
+                unpricedItems.add(item);
+            }
+        }
+        return unpricedItems;
+    }
+
+    /**
+     * @return distinct IDs of products referenced by given items
+     */
+    static Set<String> productIds(Collection<List<OrderItem>> items) {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (List<OrderItem> orderItems : items) {
+            for (OrderItem item : orderItems) {
+                String productId = productId(item);
+                if (productId != null) {
+                    productIds.add(productId);
+                }
+            }
+        }
+        return productIds;
+    }
+
+    /**
+     * Sets the unit prices of given items of given order and its total.
+     *
+     * @param unpricedItems items of the order to price at the current prices
+     * @param products      products by ID, items of missing and removed ones are left unpriced and do not count
+     *                      towards the total
+     */
+    static void price(Order order, List<OrderItem> unpricedItems, Map<String, Product> products) {
+        for (OrderItem item : unpricedItems) {
+            String productId = productId(item);
+            price(item, productId != null ? products.get(productId) : null);
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem item : nullToEmpty(order.getItems())) {
+            if (item.getUnitPrice() != null) {
+                total = total.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            }
+        }
+        order.setTotal(total);
+    }
+
+    /**
+     * @return whether any of given items references a removed product
+     */
+    static boolean referencesRemoved(List<OrderItem> items, Map<String, Product> products) {
+        for (OrderItem item : items) {
+            String productId = productId(item);
+            Product product = productId != null ? products.get(productId) : null;
+            if (product != null && product.isRemoved()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param unpricedItems items to price at the current prices
+     * @throws RemovedProductException if any of given items references a removed product
+     */
+    static void rejectRemoved(List<OrderItem> unpricedItems, Map<String, Product> products) {
+        for (OrderItem item : unpricedItems) {
+            String productId = productId(item);
+            rejectRemoved(item, productId != null ? products.get(productId) : null);
+        }
+    }
+
+    static void rejectRemoved(OrderItem item, Product product) {
+        if (product != null && product.isRemoved()) {
+            throw new RemovedProductException(product.getId());
+        }
+    }
+
+    static void price(OrderItem item, Product product) {
+        item.setUnitPrice(product != null && !product.isRemoved() ? product.getPrice() : null);
+    }
+
+    private static String productId(OrderItem item) {
+        return item != null && item.getProduct() != null ? item.getProduct().getId() : null;
+    }
+
+    private static List<OrderItem> nullToEmpty(List<OrderItem> items) {
+        return items != null ? items : List.of();
+    }
+}
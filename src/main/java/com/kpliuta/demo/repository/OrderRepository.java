@@ -3,5 +3,16 @@ package com.kpliuta.demo.repository;
 import com.kpliuta.demo.domain.Order;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface OrderRepository extends MongoRepository<Order, String> {
+import java.util.Optional;
+
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom,
+        ConditionalUpdateRepository<Order>, BulkWriteRepository<Order>, OrderStatsRepository {
+
+    /**
+     * Finds the version of an order by given ID without loading the order.
+     *
+     * @param id order ID
+     * @return version, if found
+     */
+    Optional<VersionProjection> findVersionById(String id);
 }
@@ -0,0 +1,89 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Finds a page of orders. Products referenced by the items of all orders on the page are resolved with a single
+     * query instead of one lookup per item. No count query is issued.
+     *
+     * @param pageable page to load
+     * @param fields   property paths to load, empty for all properties. Products are resolved only if
+     *                 {@code items.product} or one of its properties is requested
+     * @return orders of the page
+     */
+    List<Order> findAllWithProducts(Pageable pageable, Collection<String> fields);
+
+    /**
+     * Finds orders with IDs greater than given one, ordered by ID. Uses a range query instead of skipping previous
+     * pages, no count query is issued. Products are resolved as in
+     * {@link #findAllWithProducts(Pageable, Collection)}.
+     *
+     * @param id     ID of the last order of the previous page or {@code null} for the first page
+     * @param limit  maximum number of orders
+     * @param fields property paths to load, empty for all properties
+     * @return orders, {@link Slice#hasNext()} tells if there are more
+     */
+    Slice<Order> findAllWithProductsAfter(String id, int limit, Collection<String> fields);
+
+    /**
+     * Finds an order by given ID. Products referenced by its items are resolved with a single query.
+     *
+     * @param id     order ID
+     * @param fields property paths to load, empty for all properties
+     * @return order, if found
+     */
+    Optional<Order> findByIdWithProducts(String id, Collection<String> fields);
+
+    /**
+     * Streams orders ordered by ID from a cursor, so that only a batch of orders is held in memory at a time regardless
+     * of the number of matching orders. Products are resolved per batch as in
+     * {@link #findAllWithProducts(Pageable, Collection)}, querying products without the cache. The stream must be
+     * closed to release the cursor.
+     *
+     * @param customerId customer ID or {@code null} for orders of all customers
+     * @param afterId    exclusive lower bound of order IDs or {@code null}
+     * @param beforeId   exclusive upper bound of order IDs or {@code null}
+     * @return orders
+     */
+    Stream<Order> streamWithProducts(String customerId, String afterId, String beforeId);
+
+    /**
+     * Appends an item to an order, recomputes its total and increments its version in a single atomic update,
+     * regardless of the version the caller has seen.
+     *
+     * @param id   order ID
+     * @param item item to append, priced with {@link OrderPricing#price(OrderItem)}
+     * @return updated order, if found
+     */
+    Optional<Order> addItem(String id, OrderItem item);
+
+    /**
+     * Removes an item at given position from an order, recomputes its total and increments its version in a single
+     * atomic update.
+     *
+     * @param id    order ID
+     * @param index item position
+     * @return updated order, if found and having an item at given position
+     */
+    Optional<Order> removeItem(String id, int index);
+
+    /**
+     * Removes all items referencing given product from an order, recomputes its total and increments its version in a
+     * single atomic update.
+     *
+     * @param id        order ID
+     * @param productId product ID
+     * @return updated order, if found and having an item referencing given product
+     */
+    Optional<Order> removeItems(String id, String productId);
+}
@@ -0,0 +1,129 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    /**
+     * Number of streamed orders fetched with a single cursor batch and resolved with a single products query.
+     */
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderDocumentReader orderDocumentReader;
+
+    @Override
+    public List<Order> findAllWithProducts(Pageable pageable, Collection<String> fields) {
+        return orderDocumentReader.read(mongoTemplate.query(Order.class)
+                .as(Document.class)
+                .matching(include(new Query().with(pageable), fields))
+                .all());
+    }
+
+    @Override
+    public Slice<Order> findAllWithProductsAfter(String id, int limit, Collection<String> fields) {
+        Query query = Slices.afterId(null, mongoTemplate.getConverter().convertId(id, ObjectId.class), limit);
+        List<Document> documents = mongoTemplate.query(Order.class)
+                .as(Document.class)
+                .matching(include(query, fields))
+                .all();
+        return Slices.toSlice(orderDocumentReader.read(documents), limit);
+    }
+
+    @Override
+    public Optional<Order> findByIdWithProducts(String id, Collection<String> fields) {
+        return mongoTemplate.query(Order.class)
+                .as(Document.class)
+                .matching(include(Query.query(where("id").is(id)), fields))
+                .first()
+                .map(document -> orderDocumentReader.read(List.of(document)).get(0));
+    }
+
+    @Override
+    public Stream<Order> streamWithProducts(String customerId, String afterId, String beforeId) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        Query query = Slices.idRange(converter.convertId(afterId, ObjectId.class),
+                        converter.convertId(beforeId, ObjectId.class))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        if (customerId != null) {
+            query.addCriteria(where("customerId").is(customerId));
+        }
+        Stream<Document> documents = mongoTemplate.query(Order.class)
+                .as(Document.class)
+                .matching(query)
+                .stream();
+        return batches(documents).flatMap(batch -> orderDocumentReader.readUncached(batch).stream());
+    }
+
+    @Override
+    public Optional<Order> addItem(String id, OrderItem item) {
+        return findAndModify(OrderItemUpdate.addItem(mongoTemplate.getConverter(), id, item));
+    }
+
+    @Override
+    public Optional<Order> removeItem(String id, int index) {
+        return findAndModify(OrderItemUpdate.removeItem(mongoTemplate.getConverter(), id, index));
+    }
+
+    @Override
+    public Optional<Order> removeItems(String id, String productId) {
+        return findAndModify(OrderItemUpdate.removeItems(mongoTemplate.getConverter(), id, productId));
+    }
+
+    /**
+     * Pushes given fields down as a projection. Properties of products are not stored within orders: requesting any of
+     * them loads the product reference, which is then resolved as a whole.
+     */
+    private static Query include(Query query, Collection<String> fields) {
+        String productPath = OrderDocumentReader.ITEMS_FIELD + "." + OrderDocumentReader.PRODUCT_FIELD;
+        Set<String> storedFields = new LinkedHashSet<>();
+        for (String field : fields) {
+            storedFields.add(field.startsWith(productPath + ".") ? productPath : field);
+        }
+        return FieldProjection.include(query, storedFields);
+    }
+
+    private static Stream<List<Document>> batches(Stream<Document> documents) {
+        Iterator<Document> iterator = documents.iterator();
+        Iterator<List<Document>> batches = new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<Document> next() {
+                List<Document> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+                while (batch.size() < STREAM_BATCH_SIZE && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+                return batch;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+                .onClose(documents::close);
+    }
+
+    private Optional<Order> findAndModify(OrderItemUpdate update) {
+        return Optional.ofNullable(mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                        .findOneAndUpdate(update.filter(), update.pipeline(), OrderItemUpdate.OPTIONS))
+                .map(document -> orderDocumentReader.read(List.of(document)).get(0));
+    }
+}
@@ -0,0 +1,46 @@
+package com.kpliuta.demo.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the materialized order statistics every {@link OrderStatsProperties#refreshInterval()}, starting at
+ * startup. Every node refreshes them, the latest refresh wins.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "demo.order.stats", name = "materialized", havingValue = "true")
+public class OrderStatsMaterializer implements SchedulingConfigurer {
+
+    private final OrderRepository orderRepository;
+    private final OrderStatsProperties properties;
+    private final Timer refreshTimer;
+
+    public OrderStatsMaterializer(OrderRepository orderRepository, OrderStatsProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.properties = properties;
+        this.refreshTimer = Timer.builder("demo.order.stats.refresh")
+                .description("Refreshes of the materialized order statistics")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::refresh, properties.refreshInterval());
+    }
+
+    void refresh() {
+        long start = System.nanoTime();
+        refreshTimer.record(orderRepository::refreshStats);
+        log.info("Refreshed order statistics in {} ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,14 @@
+package com.kpliuta.demo.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param materialized    whether order statistics are read from collections refreshed on schedule instead of being
+ *                        computed from all orders on every request
+ * @param refreshInterval delay between the end of a refresh of the materialized statistics and the start of the next
+ */
+@ConfigurationProperties(prefix = "demo.order.stats")
+public record OrderStatsProperties(boolean materialized, Duration refreshInterval) {
+}
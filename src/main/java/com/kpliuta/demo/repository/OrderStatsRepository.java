@@ -0,0 +1,36 @@
+package com.kpliuta.demo.repository;
+
+import java.util.List;
+
+/**
+ * Order statistics computed by aggregation pipelines, so that reports do not load orders and products. Revenue is
+ * based on the unit prices of order items, see {@link OrderPricing}. Unless {@link OrderStatsProperties#materialized()},
+ * every call aggregates all orders.
+ */
+public interface OrderStatsRepository {
+
+    /**
+     * @return revenue of all brands, highest first
+     */
+    List<BrandRevenue> findRevenueByBrand();
+
+    /**
+     * @param limit maximum number of products
+     * @return products with the highest revenue, highest first
+     */
+    List<ProductSales> findTopProducts(int limit);
+
+    /**
+     * @param customerId customer ID or {@code null} for all customers. Only the orders of given customer are
+     *                   aggregated, using the customer ID index
+     * @param limit      maximum number of customers
+     * @return customers with the highest spend, highest first
+     */
+    List<CustomerSpend> findCustomerSpend(String customerId, int limit);
+
+    /**
+     * Recomputes the materialized statistics from all orders. Every materialized statistic is replaced at once when
+     * recomputed, so that readers never see partial results.
+     */
+    void refreshStats();
+}
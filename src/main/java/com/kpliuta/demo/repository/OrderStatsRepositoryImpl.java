@@ -0,0 +1,167 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.ID_FIELD;
+import static com.kpliuta.demo.repository.OrderDocumentReader.*;
+
+class OrderStatsRepositoryImpl implements OrderStatsRepository {
+
+    private static final String CUSTOMER_ID_FIELD = "customerId";
+    private static final String BRAND_FIELD = "brand";
+    private static final String NAME_FIELD = "name";
+    private static final String REVENUE_FIELD = "revenue";
+    private static final String ORDERS_FIELD = "orders";
+    private static final String SPEND_FIELD = "spend";
+
+    private static final Document SORT_BY_REVENUE = new Document("$sort",
+            new Document(REVENUE_FIELD, -1).append(ID_FIELD, 1));
+    private static final Document SORT_BY_SPEND = new Document("$sort",
+            new Document(SPEND_FIELD, -1).append(ID_FIELD, 1));
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderStatsProperties properties;
+    private final Statistic productSales;
+    private final Statistic brandRevenue;
+    private final Statistic customerSpend;
+
+    OrderStatsRepositoryImpl(MongoTemplate mongoTemplate, OrderStatsProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+
+        // products are looked up once per distinct product rather than once per item
+        List<Document> productSalesStages = List.of(
+                new Document("$unwind", "$" + ITEMS_FIELD),
+                new Document("$group", new Document(ID_FIELD, "$" + ITEMS_FIELD + "." + PRODUCT_FIELD)
+                        .append(QUANTITY_FIELD, new Document("$sum", "$" + ITEMS_FIELD + "." + QUANTITY_FIELD))
+                        .append(REVENUE_FIELD, new Document("$sum", new Document("$multiply", List.of(
+                                "$" + ITEMS_FIELD + "." + UNIT_PRICE_FIELD, "$" + ITEMS_FIELD + "." + QUANTITY_FIELD))))),
+                new Document("$lookup", new Document()
+                        .append("from", mongoTemplate.getCollectionName(Product.class))
+                        .append("localField", ID_FIELD)
+                        .append("foreignField", ID_FIELD)
+                        .append("pipeline", List.of(new Document("$project",
+                                new Document(BRAND_FIELD, 1).append(NAME_FIELD, 1))))
+                        .append("as", PRODUCT_FIELD)),
+                new Document("$set", new Document()
+                        .append(BRAND_FIELD, new Document("$first", "$" + PRODUCT_FIELD + "." + BRAND_FIELD))
+                        .append(NAME_FIELD, new Document("$first", "$" + PRODUCT_FIELD + "." + NAME_FIELD))),
+                new Document("$unset", PRODUCT_FIELD));
+        List<Document> brandRevenueStages = new ArrayList<>(productSalesStages);
+        brandRevenueStages.add(new Document("$group", new Document(ID_FIELD, "$" + BRAND_FIELD)
+                .append(QUANTITY_FIELD, new Document("$sum", "$" + QUANTITY_FIELD))
+                .append(REVENUE_FIELD, new Document("$sum", "$" + REVENUE_FIELD))));
+        List<Document> customerSpendStages = List.of(
+                new Document("$group", new Document(ID_FIELD, "$" + CUSTOMER_ID_FIELD)
+                        .append(ORDERS_FIELD, new Document("$sum", 1))
+                        .append(SPEND_FIELD, new Document("$sum", "$" + TOTAL_FIELD))));
+
+        this.productSales = new Statistic("productSalesStats", productSalesStages,
+                Indexes.compoundIndex(Indexes.descending(REVENUE_FIELD), Indexes.ascending(ID_FIELD)));
+        this.brandRevenue = new Statistic("brandRevenueStats", brandRevenueStages, null);
+        this.customerSpend = new Statistic("customerSpendStats", customerSpendStages,
+                Indexes.compoundIndex(Indexes.descending(SPEND_FIELD), Indexes.ascending(ID_FIELD)));
+    }
+
+    @Override
+    public List<BrandRevenue> findRevenueByBrand() {
+        Document project = new Document("$project", new Document(ID_FIELD, 0)
+                .append(BRAND_FIELD, "$" + ID_FIELD)
+                .append(QUANTITY_FIELD, 1)
+                .append(REVENUE_FIELD, toDecimal(REVENUE_FIELD)));
+        return read(brandRevenue, null, List.of(SORT_BY_REVENUE, project), BrandRevenue.class);
+    }
+
+    @Override
+    public List<ProductSales> findTopProducts(int limit) {
+        Document project = new Document("$project", new Document(ID_FIELD, 0)
+                .append("productId", new Document("$toString", "$" + ID_FIELD))
+                .append(BRAND_FIELD, 1)
+                .append(NAME_FIELD, 1)
+                .append(QUANTITY_FIELD, 1)
+                .append(REVENUE_FIELD, toDecimal(REVENUE_FIELD)));
+        return read(productSales, null, List.of(SORT_BY_REVENUE, new Document("$limit", limit), project),
+                ProductSales.class);
+    }
+
+    @Override
+    public List<CustomerSpend> findCustomerSpend(String customerId, int limit) {
+        Document project = new Document("$project", new Document(ID_FIELD, 0)
+                .append(CUSTOMER_ID_FIELD, "$" + ID_FIELD)
+                .append(ORDERS_FIELD, 1)
+                .append(SPEND_FIELD, toDecimal(SPEND_FIELD)));
+        return read(customerSpend, customerId, List.of(SORT_BY_SPEND, new Document("$limit", limit), project),
+                CustomerSpend.class);
+    }
+
+    @Override
+    public void refreshStats() {
+        MongoCollection<Document> orders = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class));
+        for (Statistic statistic : List.of(productSales, brandRevenue, customerSpend)) {
+            List<Document> pipeline = new ArrayList<>(statistic.stages());
+            // $out replaces the collection atomically once the pipeline has completed, keeping its indexes
+            pipeline.add(new Document("$out", statistic.collection()));
+            orders.aggregate(pipeline).allowDiskUse(true).toCollection();
+            if (statistic.index() != null) {
+                mongoTemplate.getCollection(statistic.collection()).createIndex(statistic.index());
+            }
+        }
+    }
+
+    /**
+     * Reads a statistic from its materialized collection or computes it from the orders.
+     *
+     * @param customerId customer whose orders are aggregated or {@code null} for all orders, matched as the
+     *                   {@code _id} of materialized customer statistics
+     * @param query      stages applied to the documents of the statistic
+     */
+    private <T> List<T> read(Statistic statistic, String customerId, List<Document> query, Class<T> type) {
+        List<Document> pipeline = new ArrayList<>();
+        String collection;
+        if (properties.materialized()) {
+            collection = statistic.collection();
+            if (customerId != null) {
+                pipeline.add(new Document("$match", new Document(ID_FIELD, customerId)));
+            }
+        } else {
+            collection = mongoTemplate.getCollectionName(Order.class);
+            if (customerId != null) {
+                pipeline.add(new Document("$match", new Document(CUSTOMER_ID_FIELD, customerId)));
+            }
+            pipeline.addAll(statistic.stages());
+        }
+        pipeline.addAll(query);
+        MongoConverter converter = mongoTemplate.getConverter();
+        return mongoTemplate.getCollection(collection)
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .map(document -> converter.read(type, document))
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * A sum of no decimals is an integer.
+     */
+    private static Document toDecimal(String field) {
+        return new Document("$toDecimal", "$" + field);
+    }
+
+    /**
+     * Statistic computed from the orders by given stages as documents keyed by {@code _id}.
+     *
+     * @param collection collection the statistic is materialized to
+     * @param index      index of the materialized collection supporting its sort order, if any
+     */
+    private record Statistic(String collection, List<Document> stages, Bson index) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import com.mongodb.client.MongoCollection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.ID_FIELD;
+import static com.kpliuta.demo.repository.OrderDocumentReader.*;
+
+/**
+ * Prices orders stored without a total at startup, as {@link OrderPricing} would: items get the current prices of
+ * their products and orders the resulting total. Orders are priced by a single aggregation merging the results back
+ * into the orders collection, orders written meanwhile keep the prices they were written with.
+ * <p>
+ * Runs once all beans are created, before the web server starts, as an item update of an unpriced order would
+ * otherwise write a total of its priced items only and the order would no longer be backfilled. Orders written since
+ * are priced, so the backfill is a one-off {@link Migrations migration}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderTotalBackfill implements SmartInitializingSingleton {
+
+    private static final String PRODUCTS = "products";
+    private static final String MIGRATION = "order-total-backfill";
+    private static final String PRICE_FIELD = "price";
+
+    private final MongoTemplate mongoTemplate;
+    private final Migrations migrations;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrations.runOnce(MIGRATION, this::backfill);
+    }
+
+    public void backfill() {
+        String collection = mongoTemplate.getCollectionName(Order.class);
+        MongoCollection<Document> orders = mongoTemplate.getCollection(collection);
+        Document unpriced = new Document(TOTAL_FIELD, new Document("$exists", false));
+        long count = orders.countDocuments(unpriced);
+        if (count > 0) {
+            log.info("Pricing {} orders without a total in collection '{}'", count, collection);
+            orders.aggregate(pipeline(unpriced, collection)).toCollection();
+        }
+    }
+
+    private List<Document> pipeline(Document unpriced, String collection) {
+        Document lookupProducts = new Document("$lookup", new Document()
+                .append("from", mongoTemplate.getCollectionName(Product.class))
+                .append("localField", ITEMS_FIELD + "." + PRODUCT_FIELD)
+                .append("foreignField", ID_FIELD)
+                .append("pipeline", List.of(new Document("$project", new Document(PRICE_FIELD, 1))))
+                .append("as", PRODUCTS));
+        Document product = new Document("$first", new Document("$filter", new Document("input", "$" + PRODUCTS)
+                .append("cond", new Document("$eq", List.of("$$this." + ID_FIELD, "$$item." + PRODUCT_FIELD)))));
+        Document unitPrice = new Document("$toDecimal", new Document("$getField", new Document("field", PRICE_FIELD)
+                .append("input", product)));
+        Document priceItems = new Document("$project", new Document(ITEMS_FIELD, new Document("$map",
+                new Document("input", "$" + ITEMS_FIELD)
+                        .append("as", "item")
+                        .append("in", new Document("$mergeObjects",
+                                List.of("$$item", new Document(UNIT_PRICE_FIELD, unitPrice)))))));
+        Document setTotal = new Document("$set", new Document(TOTAL_FIELD, OrderItemUpdate.TOTAL));
+
+        // an order priced since it was matched keeps its items and total
+        Document isUnpriced = new Document("$eq", List.of(new Document("$type", "$" + TOTAL_FIELD), "missing"));
+        Document mergeIfUnpriced = new Document("$set", new Document()
+                .append(ITEMS_FIELD, ifUnpriced(isUnpriced, ITEMS_FIELD))
+                .append(TOTAL_FIELD, ifUnpriced(isUnpriced, TOTAL_FIELD)));
+        Document merge = new Document("$merge", new Document("into", collection)
+                .append("on", ID_FIELD)
+                .append("whenMatched", List.of(mergeIfUnpriced))
+                .append("whenNotMatched", "discard"));
+
+        return List.of(new Document("$match", unpriced), lookupProducts, priceItems, setTotal, merge);
+    }
+
+    /**
+     * @return expression of the merged value of given field, the stored one unless the stored order is unpriced
+     */
+    private static Document ifUnpriced(Document isUnpriced, String field) {
+        return new Document("$cond", List.of(isUnpriced, "$$new." + field, "$" + field));
+    }
+}
@@ -0,0 +1,50 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Product;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Converts product prices stored as strings, the default representation of {@link java.math.BigDecimal}, to
+ * Decimal128 at startup, so that price ranges and ordering are numeric. Versions are left untouched, as the prices
+ * themselves do not change. Prices are written as Decimal128 since, so the conversion is a one-off
+ * {@link Migrations migration}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductPriceMigration implements ApplicationRunner {
+
+    private static final String MIGRATION = "product-price-decimal128";
+    private static final String PRICE_FIELD = "price";
+
+    private final MongoTemplate mongoTemplate;
+    private final Migrations migrations;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrations.runOnce(MIGRATION, this::migrate);
+    }
+
+    public void migrate() {
+        String collection = mongoTemplate.getCollectionName(Product.class);
+        MongoCollection<Document> products = mongoTemplate.getCollection(collection);
+        UpdateResult result = products.updateMany(
+                new Document(PRICE_FIELD, new Document("$type", "string")),
+                List.of(new Document("$set", new Document(PRICE_FIELD,
+                        new Document("$toDecimal", "$" + PRICE_FIELD)))));
+        if (result.getModifiedCount() > 0) {
+            log.info("Converted {} product prices to Decimal128 in collection '{}'", result.getModifiedCount(),
+                    collection);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.cache.ProductCache;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import com.mongodb.client.MongoCollection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.ID_FIELD;
+import static com.kpliuta.demo.repository.OrderDocumentReader.ITEMS_FIELD;
+import static com.kpliuta.demo.repository.OrderDocumentReader.PRODUCT_FIELD;
+
+/**
+ * Deletes removed products that are not referenced by any order every {@link ProductPurgeProperties#interval()},
+ * optionally archiving them first. Removed products are walked in batches by ID, pausing between batches. Products
+ * referenced by orders are kept, so that orders can still be dereferenced. A removed product referenced by an order
+ * written while it is being purged is dereferenced like a product that never existed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "demo.product.purge", name = "enabled", havingValue = "true")
+public class ProductPurge implements SchedulingConfigurer {
+
+    static final String ARCHIVE_COLLECTION = "productArchive";
+
+    private static final String REMOVED_FIELD = "removed";
+    private static final String ITEMS_PRODUCT_FIELD = ITEMS_FIELD + "." + PRODUCT_FIELD;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final ProductPurgeProperties properties;
+    private final Counter purgedCounter;
+
+    public ProductPurge(MongoTemplate mongoTemplate, ProductCache productCache, ProductPurgeProperties properties,
+                        MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.properties = properties;
+        this.purgedCounter = Counter.builder("demo.product.purged")
+                .description("Removed products deleted by the purge")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        // by the first purge, indexes have been created
+        taskRegistrar.addFixedDelayTask(new FixedDelayTask(this::purge, properties.interval(), properties.interval()));
+    }
+
+    /**
+     * Purges all unreferenced removed products.
+     *
+     * @return number of purged products
+     */
+    public long purge() {
+        MongoCollection<Document> products = mongoTemplate.getCollection(
+                mongoTemplate.getCollectionName(Product.class));
+        MongoCollection<Document> orders = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class));
+        long purged = 0;
+        Object lastId = null;
+        while (true) {
+            List<Object> ids = findRemovedIds(products, lastId);
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+            Set<Object> referencedIds = findReferencedIds(orders, ids);
+            List<Object> unreferencedIds = ids.stream().filter(id -> !referencedIds.contains(id)).toList();
+            if (!unreferencedIds.isEmpty()) {
+                purged += purge(products, unreferencedIds);
+            }
+            if (ids.size() < properties.batchSize() || !pause()) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} removed products", purged);
+        }
+        return purged;
+    }
+
+    /**
+     * @return IDs of the next batch of removed products, found by the partial index of removed products
+     */
+    private List<Object> findRemovedIds(MongoCollection<Document> products, Object lastId) {
+        Document filter = new Document(REMOVED_FIELD, true);
+        if (lastId != null) {
+            filter.append(ID_FIELD, new Document("$gt", lastId));
+        }
+        return products.find(filter)
+                .projection(new Document(ID_FIELD, 1))
+                .sort(new Document(ID_FIELD, 1))
+                .limit(properties.batchSize())
+                .map(document -> document.get(ID_FIELD))
+                .into(new ArrayList<>());
+    }
+
+    /**
+     * @return those of given product IDs that are referenced by an order, found by the order items product index
+     */
+    private static Set<Object> findReferencedIds(MongoCollection<Document> orders, List<Object> ids) {
+        Document referencesIds = new Document(ITEMS_PRODUCT_FIELD, new Document("$in", ids));
+        return orders.aggregate(List.of(
+                        new Document("$match", referencesIds),
+                        new Document("$unwind", "$" + ITEMS_FIELD),
+                        new Document("$match", referencesIds),
+                        new Document("$group", new Document(ID_FIELD, "$" + ITEMS_PRODUCT_FIELD))))
+                .map(document -> document.get(ID_FIELD))
+                .into(new HashSet<>());
+    }
+
+    private long purge(MongoCollection<Document> products, List<Object> ids) {
+        // still removed, in case a product has been written meanwhile
+        Document filter = new Document(ID_FIELD, new Document("$in", ids)).append(REMOVED_FIELD, true);
+        if (properties.archive()) {
+            products.aggregate(List.of(
+                            new Document("$match", filter),
+                            new Document("$merge", new Document("into", ARCHIVE_COLLECTION))))
+                    .toCollection();
+        }
+        long deleted = products.deleteMany(filter).getDeletedCount();
+        ids.forEach(id -> productCache.invalidate(id.toString()));
+        purgedCounter.increment(deleted);
+        return deleted;
+    }
+
+    /**
+     * @return whether to go on, {@code false} if interrupted
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.batchDelay());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
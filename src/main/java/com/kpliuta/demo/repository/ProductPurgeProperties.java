@@ -0,0 +1,18 @@
+package com.kpliuta.demo.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param enabled    whether removed products are purged
+ * @param interval   delay between the end of a purge and the start of the next one, also delays the first purge
+ * @param batchSize  number of removed products checked for references and purged at once
+ * @param batchDelay pause between batches, limiting the load a purge puts on the database
+ * @param archive    whether purged products are copied to the {@value ProductPurge#ARCHIVE_COLLECTION} collection
+ *                   before being deleted
+ */
+@ConfigurationProperties(prefix = "demo.product.purge")
+public record ProductPurgeProperties(boolean enabled, Duration interval, int batchSize, Duration batchDelay,
+                                     boolean archive) {
+}
@@ -4,7 +4,8 @@ import com.kpliuta.demo.domain.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Update;
 
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom,
+        ConditionalUpdateRepository<Product>, BulkWriteRepository<Product> {
 
     /**
      * Finds a product by given ID and sets 'removed' flag to 'true'.
@@ -0,0 +1,56 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Finds a page of non-removed products. No count query is issued.
+     *
+     * @param pageable page to load
+     * @param fields   property paths to load, empty for all properties
+     * @return products of the page
+     */
+    List<Product> findAllNotRemoved(Pageable pageable, Collection<String> fields);
+
+    /**
+     * Finds non-removed products with IDs greater than given one, ordered by ID. Uses a range query instead of skipping
+     * previous pages, no count query is issued.
+     *
+     * @param id     ID of the last product of the previous page or {@code null} for the first page
+     * @param limit  maximum number of products
+     * @param fields property paths to load, empty for all properties
+     * @return products, {@link Slice#hasNext()} tells if there are more
+     */
+    Slice<Product> findAllAfter(String id, int limit, Collection<String> fields);
+
+    /**
+     * Finds non-removed products matching given criteria, ordered by relevance to the searched text if any, by price
+     * otherwise, and then by ID. Uses a range query on the sort key instead of skipping previous pages, no count query
+     * is issued.
+     *
+     * @param search criteria
+     * @param after  {@link ProductSearchResult#next()} key of the previous page or {@code null} for the first page
+     * @param limit  maximum number of products
+     * @param fields property paths to load, empty for all properties
+     * @return products
+     * @throws IllegalArgumentException if the key was not returned by a search of the same kind, with or without text
+     */
+    ProductSearchResult search(ProductSearch search, String after, int limit, Collection<String> fields);
+
+    /**
+     * Streams non-removed products ordered by ID from a cursor, so that only a cursor batch of products is held in
+     * memory at a time. The stream must be closed to release the cursor.
+     *
+     * @param afterId  exclusive lower bound of product IDs or {@code null}
+     * @param beforeId exclusive upper bound of product IDs or {@code null}
+     * @return products
+     */
+    Stream<Product> streamAll(String afterId, String beforeId);
+}
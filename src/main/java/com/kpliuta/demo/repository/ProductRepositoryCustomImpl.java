@@ -0,0 +1,167 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Product;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.kpliuta.demo.repository.ConditionalUpdate.ID_FIELD;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    /**
+     * Number of streamed products fetched with a single cursor batch.
+     */
+    private static final int STREAM_BATCH_SIZE = 1000;
+
+    private static final String SCORE_FIELD = "score";
+    private static final String TEXT_SEARCH = "text";
+    private static final String PRICE_SEARCH = "price";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Product> findAllNotRemoved(Pageable pageable, Collection<String> fields) {
+        Query query = Query.query(where("removed").is(false)).with(pageable);
+        return mongoTemplate.find(FieldProjection.include(query, fields), Product.class);
+    }
+
+    @Override
+    public Slice<Product> findAllAfter(String id, int limit, Collection<String> fields) {
+        Query query = FieldProjection.include(Slices.afterId(where("removed").is(false),
+                mongoTemplate.getConverter().convertId(id, ObjectId.class), limit), fields);
+        return Slices.toSlice(mongoTemplate.find(query, Product.class), limit);
+    }
+
+    @Override
+    public ProductSearchResult search(ProductSearch search, String after, int limit, Collection<String> fields) {
+        Criteria criteria = where("removed").is(false);
+        if (search.brand() != null) {
+            criteria.and("brand").is(search.brand());
+        }
+        if (search.minPrice() != null || search.maxPrice() != null) {
+            Criteria price = criteria.and("price");
+            if (search.minPrice() != null) {
+                price.gte(new Decimal128(search.minPrice()));
+            }
+            if (search.maxPrice() != null) {
+                price.lte(new Decimal128(search.maxPrice()));
+            }
+        }
+        return search.hasText()
+                ? searchText(search.text(), criteria, after == null ? null : SearchKey.parse(after, TEXT_SEARCH),
+                limit, fields)
+                : searchPrice(criteria, after == null ? null : SearchKey.parse(after, PRICE_SEARCH), limit, fields);
+    }
+
+    /**
+     * Searches the text index, which yields all matching products at once, and orders them by their score.
+     */
+    private ProductSearchResult searchText(String text, Criteria criteria, SearchKey after, int limit,
+                                           Collection<String> fields) {
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", new Document(criteria.getCriteriaObject())
+                .append("$text", new Document("$search", text))));
+        pipeline.add(new Document("$set", new Document(SCORE_FIELD, new Document("$meta", "textScore"))));
+        if (after != null) {
+            double score = Double.parseDouble(after.value());
+            Object id = mongoTemplate.getConverter().convertId(after.id(), ObjectId.class);
+            pipeline.add(new Document("$match", new Document("$or", List.of(
+                    new Document(SCORE_FIELD, new Document("$lt", score)),
+                    new Document(SCORE_FIELD, score).append(ID_FIELD, new Document("$gt", id))))));
+        }
+        pipeline.add(new Document("$sort", new Document(SCORE_FIELD, -1).append(ID_FIELD, 1)));
+        pipeline.add(new Document("$limit", limit + 1));
+        if (!fields.isEmpty()) {
+            Document projection = new Document("version", 1).append(SCORE_FIELD, 1);
+            fields.forEach(field -> projection.append(field, 1));
+            pipeline.add(new Document("$project", projection));
+        }
+
+        List<Document> documents = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+                .aggregate(pipeline)
+                .into(new ArrayList<>());
+        Slice<Document> slice = Slices.toSlice(documents, limit);
+        MongoConverter converter = mongoTemplate.getConverter();
+        List<Product> products = slice.map(document -> converter.read(Product.class, document)).getContent();
+        String next = null;
+        if (slice.hasNext()) {
+            double score = documents.get(limit - 1).get(SCORE_FIELD, Number.class).doubleValue();
+            next = new SearchKey(TEXT_SEARCH, Double.toString(score), products.get(limit - 1).getId()).toString();
+        }
+        return new ProductSearchResult(products, next);
+    }
+
+    /**
+     * Searches by price, ordered by the brand and price index for a brand and by the price index otherwise.
+     */
+    private ProductSearchResult searchPrice(Criteria criteria, SearchKey after, int limit, Collection<String> fields) {
+        if (after != null) {
+            Decimal128 price = new Decimal128(new BigDecimal(after.value()));
+            Object id = mongoTemplate.getConverter().convertId(after.id(), ObjectId.class);
+            criteria.orOperator(where("price").gt(price), where("price").is(price).and("id").gt(id));
+        }
+        Query query = FieldProjection.include(Query.query(criteria), fields)
+                .with(Sort.by("price", "id"))
+                .limit(limit + 1);
+        if (!fields.isEmpty()) {
+            // the key of the next page
+            query.fields().include("price");
+        }
+
+        Slice<Product> slice = Slices.toSlice(mongoTemplate.find(query, Product.class), limit);
+        String next = null;
+        if (slice.hasNext()) {
+            Product last = slice.getContent().get(limit - 1);
+            next = new SearchKey(PRICE_SEARCH, last.getPrice().toString(), last.getId()).toString();
+        }
+        return new ProductSearchResult(slice.getContent(), next);
+    }
+
+    @Override
+    public Stream<Product> streamAll(String afterId, String beforeId) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        Query query = Slices.idRange(converter.convertId(afterId, ObjectId.class),
+                        converter.convertId(beforeId, ObjectId.class))
+                .addCriteria(where("removed").is(false))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, Product.class);
+    }
+
+    /**
+     * Position of a product within search results of given kind, formatted as {@code kind:value:id}.
+     *
+     * @param value the text score or the price of the product
+     */
+    private record SearchKey(String kind, String value, String id) {
+
+        static SearchKey parse(String key, String kind) {
+            String[] parts = key.split(":", 3);
+            if (parts.length != 3 || !parts[0].equals(kind)) {
+                throw new IllegalArgumentException("Invalid " + kind + " search key: " + key);
+            }
+            return new SearchKey(parts[0], parts[1], parts[2]);
+        }
+
+        @Override
+        public String toString() {
+            return kind + ":" + value + ":" + id;
+        }
+    }
+}
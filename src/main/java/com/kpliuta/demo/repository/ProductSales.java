@@ -0,0 +1,15 @@
+package com.kpliuta.demo.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales of a product over all orders.
+ *
+ * @param productId product ID
+ * @param brand     brand, {@code null} if the product does not exist anymore
+ * @param name      name, {@code null} if the product does not exist anymore
+ * @param quantity  number of ordered products
+ * @param revenue   sum of the item quantities multiplied by their unit prices
+ */
+public record ProductSales(String productId, String brand, String name, long quantity, BigDecimal revenue) {
+}
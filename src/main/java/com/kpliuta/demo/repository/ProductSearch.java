@@ -0,0 +1,18 @@
+package com.kpliuta.demo.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Product search criteria, a {@code null} criterion matches all products.
+ *
+ * @param text     words or quoted phrases searched in product names and descriptions, names weighing more
+ * @param brand    brand to match exactly
+ * @param minPrice inclusive lower price bound
+ * @param maxPrice inclusive upper price bound
+ */
+public record ProductSearch(String text, String brand, BigDecimal minPrice, BigDecimal maxPrice) {
+
+    public boolean hasText() {
+        return text != null && !text.isBlank();
+    }
+}
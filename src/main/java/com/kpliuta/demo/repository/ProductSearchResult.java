@@ -0,0 +1,14 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Product;
+
+import java.util.List;
+
+/**
+ * Page of product search results.
+ *
+ * @param products found products
+ * @param next     key of the last product to search for the following ones, {@code null} if there are none
+ */
+public record ProductSearchResult(List<Product> products, String next) {
+}
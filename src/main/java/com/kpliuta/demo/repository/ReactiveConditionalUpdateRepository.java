@@ -0,0 +1,17 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Entity;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveConditionalUpdateRepository<T extends Entity> {
+
+    /**
+     * Reactive variant of {@link ConditionalUpdateRepository#update(Entity)}.
+     *
+     * @param entity entity to replace, its version is incremented on success
+     * @return updated entity or empty if there is no entity with given ID, fails with
+     * {@link OptimisticLockingFailureException} if the stored version does not match
+     */
+    Mono<T> update(T entity);
+}
@@ -0,0 +1,21 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Entity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+class ReactiveConditionalUpdateRepositoryImpl<T extends Entity> implements ReactiveConditionalUpdateRepository<T> {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<T> update(T entity) {
+        ConditionalUpdate<T> update = new ConditionalUpdate<>(reactiveMongoTemplate.getConverter(), entity);
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(entity.getClass()))
+                .flatMap(collection -> Mono.from(
+                        collection.findOneAndUpdate(update.filter(), update.pipeline(), update.options())))
+                .map(update::apply);
+    }
+}
@@ -0,0 +1,37 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.cache.ReactiveProductCache;
+import com.kpliuta.demo.domain.Order;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link OrderDocumentReader}. The reactive infrastructure does not resolve
+ * {@code @DocumentReference}s at all, so order documents must always be read through it.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveOrderDocumentReader {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReactiveProductCache reactiveProductCache;
+
+    /**
+     * Converts given order documents to entities.
+     *
+     * @param documents raw order documents, are modified by the conversion
+     * @return orders in the order of given documents
+     */
+    public Mono<List<Order>> read(List<Document> documents) {
+        OrderDocumentReader.DetachedOrders orders = OrderDocumentReader.detach(documents);
+        return reactiveProductCache.findAllById(orders.productIds())
+                .map(products -> orders.toOrders(reactiveMongoTemplate.getConverter(), products));
+    }
+}
@@ -0,0 +1,84 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.cache.ReactiveProductCache;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link OrderPricing}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveOrderPricing {
+
+    private final ReactiveProductCache reactiveProductCache;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    /**
+     * @param order order to price, is modified
+     * @return given order
+     */
+    public Mono<Order> price(Order order) {
+        Query storedPricesQuery = OrderPricing.storedPricesQuery(reactiveMongoTemplate.getConverter(), List.of(order));
+        Mono<Map<String, Map<String, List<BigDecimal>>>> storedPrices = storedPricesQuery == null
+                ? Mono.just(Map.of())
+                : reactiveMongoTemplate.find(storedPricesQuery, Document.class,
+                        reactiveMongoTemplate.getCollectionName(Order.class))
+                .collectList()
+                .map(OrderPricing::storedPrices);
+        return storedPrices.flatMap(prices -> {
+            List<OrderItem> unpricedItems = OrderPricing.carryPrices(order,
+                    order.getId() != null ? prices.get(order.getId()) : null);
+            return reactiveProductCache.findAllById(OrderPricing.productIds(List.of(unpricedItems)))
+                    .map(products -> {
+                        OrderPricing.rejectRemoved(unpricedItems, products);
+                        OrderPricing.price(order, unpricedItems, products);
+                        return order;
+                    });
+        });
+    }
+
+    /**
+     * @see OrderPricing#priceReplacement(Order)
+     */
+    public Mono<Order> priceReplacement(Order order) {
+        List<OrderItem> items = order.getItems() != null ? order.getItems() : List.of();
+        return reactiveProductCache.findAllById(OrderPricing.productIds(List.of(items))).flatMap(products -> {
+            if (OrderPricing.referencesRemoved(items, products)) {
+                return price(order);
+            }
+            OrderPricing.price(order, items, products);
+            return Mono.just(order);
+        });
+    }
+
+    /**
+     * Prices an item to be added to a stored order, whose total is then maintained by the update.
+     *
+     * @param item item to price, is modified
+     * @return given item
+     */
+    public Mono<OrderItem> price(OrderItem item) {
+        String productId = item.getProduct() != null ? item.getProduct().getId() : null;
+        if (productId == null) {
+            return Mono.just(item);
+        }
+        return reactiveProductCache.findAllById(List.of(productId)).map(products -> {
+            OrderPricing.rejectRemoved(item, products.get(productId));
+            OrderPricing.price(item, products.get(productId));
+            return item;
+        });
+    }
+}
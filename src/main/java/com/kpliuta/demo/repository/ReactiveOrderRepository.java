@@ -0,0 +1,13 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Order;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Non-blocking counterpart of {@link OrderRepository}, available with the {@code reactive} profile only. Orders must
+ * be read through {@link ReactiveOrderRepositoryCustom} methods, since the reactive infrastructure does not resolve
+ * item products.
+ */
+public interface ReactiveOrderRepository extends ReactiveMongoRepository<Order, String>,
+        ReactiveOrderRepositoryCustom, ReactiveConditionalUpdateRepository<Order> {
+}
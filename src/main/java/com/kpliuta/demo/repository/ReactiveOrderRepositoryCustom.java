@@ -0,0 +1,48 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variant of {@link OrderRepositoryCustom}.
+ */
+public interface ReactiveOrderRepositoryCustom {
+
+    /**
+     * Finds a page of orders. Orders are read from the cursor in batches, products referenced by the items of each
+     * batch are resolved with a single query. The cursor is read only as fast as orders are consumed.
+     *
+     * @param pageable page to load
+     * @return orders of the page
+     */
+    Flux<Order> findAllWithProducts(Pageable pageable);
+
+    /**
+     * See {@link OrderRepositoryCustom#findAllWithProductsAfter(String, int)}.
+     */
+    Mono<Slice<Order>> findAllWithProductsAfter(String id, int limit);
+
+    /**
+     * See {@link OrderRepositoryCustom#findByIdWithProducts(String)}.
+     */
+    Mono<Order> findByIdWithProducts(String id);
+
+    /**
+     * See {@link OrderRepositoryCustom#addItem(String, OrderItem)}.
+     */
+    Mono<Order> addItem(String id, OrderItem item);
+
+    /**
+     * See {@link OrderRepositoryCustom#removeItem(String, int)}.
+     */
+    Mono<Order> removeItem(String id, int index);
+
+    /**
+     * See {@link OrderRepositoryCustom#removeItems(String, String)}.
+     */
+    Mono<Order> removeItems(String id, String productId);
+}
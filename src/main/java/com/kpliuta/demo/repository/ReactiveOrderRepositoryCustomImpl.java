@@ -0,0 +1,86 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+class ReactiveOrderRepositoryCustomImpl implements ReactiveOrderRepositoryCustom {
+
+    /**
+     * Number of orders whose products are resolved with a single query.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReactiveOrderDocumentReader reactiveOrderDocumentReader;
+
+    @Override
+    public Flux<Order> findAllWithProducts(Pageable pageable) {
+        return findDocuments(new Query().with(pageable))
+                .buffer(BATCH_SIZE)
+                .concatMap(reactiveOrderDocumentReader::read)
+                .flatMapIterable(orders -> orders);
+    }
+
+    @Override
+    public Mono<Slice<Order>> findAllWithProductsAfter(String id, int limit) {
+        Object storedId = reactiveMongoTemplate.getConverter().convertId(id, ObjectId.class);
+        return findDocuments(Slices.afterId(null, storedId, limit))
+                .collectList()
+                .flatMap(reactiveOrderDocumentReader::read)
+                .map(orders -> Slices.toSlice(orders, limit));
+    }
+
+    @Override
+    public Mono<Order> findByIdWithProducts(String id) {
+        return findDocuments(Query.query(where("id").is(id)).limit(1))
+                .next()
+                .flatMap(this::read);
+    }
+
+    @Override
+    public Mono<Order> addItem(String id, OrderItem item) {
+        return findAndModify(OrderItemUpdate.addItem(reactiveMongoTemplate.getConverter(), id, item));
+    }
+
+    @Override
+    public Mono<Order> removeItem(String id, int index) {
+        return findAndModify(OrderItemUpdate.removeItem(reactiveMongoTemplate.getConverter(), id, index));
+    }
+
+    @Override
+    public Mono<Order> removeItems(String id, String productId) {
+        return findAndModify(OrderItemUpdate.removeItems(reactiveMongoTemplate.getConverter(), id, productId));
+    }
+
+    private Flux<Document> findDocuments(Query query) {
+        return reactiveMongoTemplate.query(Order.class)
+                .as(Document.class)
+                .matching(query)
+                .all();
+    }
+
+    private Mono<Order> findAndModify(OrderItemUpdate update) {
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Order.class))
+                .flatMap(collection -> Mono.from(
+                        collection.findOneAndUpdate(update.filter(), update.pipeline(), OrderItemUpdate.OPTIONS)))
+                .flatMap(this::read);
+    }
+
+    private Mono<Order> read(Document document) {
+        return reactiveOrderDocumentReader.read(List.of(document)).map(orders -> orders.get(0));
+    }
+}
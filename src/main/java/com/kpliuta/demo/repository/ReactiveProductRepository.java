@@ -0,0 +1,21 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Product;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link ProductRepository}, available with the {@code reactive} profile only.
+ */
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String>,
+        ReactiveProductRepositoryCustom, ReactiveConditionalUpdateRepository<Product> {
+
+    /**
+     * Finds a product by given ID and sets 'removed' flag to 'true'.
+     *
+     * @param id product ID
+     */
+    @Update("{ '$set' : { 'removed' : true } }")
+    Mono<Void> findAndSetRemovedById(String id);
+}
@@ -0,0 +1,27 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveProductRepositoryCustom {
+
+    /**
+     * Finds a page of non-removed products. Products are emitted as the cursor is read, no count query is issued.
+     *
+     * @param pageable page to load
+     * @return products of the page
+     */
+    Flux<Product> findAllNotRemoved(Pageable pageable);
+
+    /**
+     * Reactive variant of {@link ProductRepositoryCustom#findAllAfter(String, int)}.
+     *
+     * @param id    ID of the last product of the previous page or {@code null} for the first page
+     * @param limit maximum number of products
+     * @return products, {@link Slice#hasNext()} tells if there are more
+     */
+    Mono<Slice<Product>> findAllAfter(String id, int limit);
+}
@@ -0,0 +1,33 @@
+package com.kpliuta.demo.repository;
+
+import com.kpliuta.demo.domain.Product;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+class ReactiveProductRepositoryCustomImpl implements ReactiveProductRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<Product> findAllNotRemoved(Pageable pageable) {
+        return reactiveMongoTemplate.find(Query.query(where("removed").is(false)).with(pageable), Product.class);
+    }
+
+    @Override
+    public Mono<Slice<Product>> findAllAfter(String id, int limit) {
+        Query query = Slices.afterId(where("removed").is(false),
+                reactiveMongoTemplate.getConverter().convertId(id, ObjectId.class), limit);
+        return reactiveMongoTemplate.find(query, Product.class)
+                .collectList()
+                .map(products -> Slices.toSlice(products, limit));
+    }
+}
@@ -0,0 +1,12 @@
+package com.kpliuta.demo.repository;
+
+/**
+ * Thrown when an order item to price at the current price references a removed product. Stored items keep referencing
+ * removed products with the unit prices they have been snapshotted with, but no item may reference one anew.
+ */
+public class RemovedProductException extends RuntimeException {
+
+    public RemovedProductException(String productId) {
+        super("Product " + productId + " has been removed");
+    }
+}
@@ -0,0 +1,70 @@
+package com.kpliuta.demo.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Helpers for keyset (cursor) pagination by ID.
+ */
+final class Slices {
+
+    private Slices() {
+    }
+
+    /**
+     * Builds a query for elements with IDs greater than given one, ordered by ID. Requests one extra element to tell if
+     * there is a next slice.
+     *
+     * @param criteria additional criteria or {@code null}
+     * @param id       ID in its stored representation (see {@link MongoConverter#convertId(Object, Class)}), as the
+     *                 query mapper does not convert IDs within range operators
+     */
+    static Query afterId(Criteria criteria, Object id, int limit) {
+        Query query = new Query();
+        if (criteria != null) {
+            query.addCriteria(criteria);
+        }
+        if (id != null) {
+            query.addCriteria(where("id").gt(id));
+        }
+        return query.with(Sort.by("id")).limit(limit + 1);
+    }
+
+    /**
+     * Builds a query for elements with IDs within given exclusive bounds, ordered by ID.
+     *
+     * @param after  lower bound in its stored representation or {@code null}
+     * @param before upper bound in its stored representation or {@code null}
+     */
+    static Query idRange(Object after, Object before) {
+        Query query = new Query().with(Sort.by("id"));
+        if (after != null || before != null) {
+            Criteria criteria = where("id");
+            if (after != null) {
+                criteria.gt(after);
+            }
+            if (before != null) {
+                criteria.lt(before);
+            }
+            query.addCriteria(criteria);
+        }
+        return query;
+    }
+
+    /**
+     * Converts results of an {@link #afterId(Criteria, Object, int)} query to a slice.
+     */
+    static <T> Slice<T> toSlice(List<T> elements, int limit) {
+        boolean hasNext = elements.size() > limit;
+        return new SliceImpl<>(hasNext ? elements.subList(0, limit) : elements, Pageable.ofSize(limit), hasNext);
+    }
+}
@@ -0,0 +1,9 @@
+package com.kpliuta.demo.repository;
+
+/**
+ * Projection loading only the version of an entity.
+ */
+public interface VersionProjection {
+
+    Integer getVersion();
+}
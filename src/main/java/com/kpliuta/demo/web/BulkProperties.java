@@ -0,0 +1,13 @@
+package com.kpliuta.demo.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @param maxItems      maximum number of entities in a bulk request
+ * @param batchSize     number of entities written with a single bulk write
+ * @param maxLineLength maximum number of characters of an imported line, so that a line is never held in memory whole
+ *                      regardless of its length
+ */
+@ConfigurationProperties(prefix = "demo.bulk")
+public record BulkProperties(int maxItems, int batchSize, int maxLineLength) {
+}
@@ -0,0 +1,87 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.domain.Entity;
+import com.kpliuta.demo.repository.BulkItemResult;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Validates the entities of a bulk request and writes valid ones in batches, keeping the results in request order.
+ */
+@Component
+@RequiredArgsConstructor
+class BulkWriter {
+
+    /**
+     * Properties assigned on insert, not expected from the client.
+     */
+    private static final Set<String> GENERATED_PROPERTIES = Set.of("id", "version");
+
+    private final Validator validator;
+    private final BulkProperties properties;
+
+    /**
+     * @param entities  entities to insert (without a version) or to update (with a version)
+     * @param bulkWrite writes a batch of valid entities, see
+     *                  {@link com.kpliuta.demo.repository.BulkWriteRepository#bulkWrite(List)}
+     * @return results in the order of given entities
+     * @throws InvalidBulkRequestException if there are too many entities
+     */
+    <T extends Entity> List<BulkItemResult> write(List<T> entities, Function<List<T>, List<BulkItemResult>> bulkWrite) {
+        if (entities.size() > properties.maxItems()) {
+            throw new InvalidBulkRequestException("Bulk request must not exceed " + properties.maxItems() + " items");
+        }
+        BulkItemResult[] results = new BulkItemResult[entities.size()];
+        List<T> batch = new ArrayList<>(properties.batchSize());
+        List<Integer> batchIndexes = new ArrayList<>(properties.batchSize());
+        for (int i = 0; i < entities.size(); i++) {
+            T entity = entities.get(i);
+            String error = entity != null ? validate(entity) : "must not be null";
+            if (error != null) {
+                results[i] = BulkItemResult.invalid(entity != null ? entity.getId() : null, error);
+                continue;
+            }
+            batch.add(entity);
+            batchIndexes.add(i);
+            if (batch.size() == properties.batchSize()) {
+                write(batch, batchIndexes, bulkWrite, results);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, batchIndexes, bulkWrite, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private <T extends Entity> void write(List<T> batch, List<Integer> batchIndexes,
+                                          Function<List<T>, List<BulkItemResult>> bulkWrite, BulkItemResult[] results) {
+        List<BulkItemResult> batchResults = bulkWrite.apply(batch);
+        for (int i = 0; i < batchResults.size(); i++) {
+            results[batchIndexes.get(i)] = batchResults.get(i);
+        }
+        batch.clear();
+        batchIndexes.clear();
+    }
+
+    /**
+     * @return violated constraints or {@code null} if the entity is valid
+     */
+    private String validate(Entity entity) {
+        boolean insert = entity.getVersion() == null;
+        String error = validator.validate(entity).stream()
+                .filter(violation -> !insert || !GENERATED_PROPERTIES.contains(violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(joining(", "));
+        return error.isEmpty() ? null : error;
+    }
+}
@@ -0,0 +1,31 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.cache.ProductCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequestMapping(path = "/api/cache")
+@Tag(name = "Cache", description = "Cache API")
+@RestController
+@RequiredArgsConstructor
+public class CacheRestController {
+
+    private final ProductCache productCache;
+
+    @Operation(summary = "Return product cache statistics",
+            description = "Return size and hit, miss and eviction counters of the product cache")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation")
+    })
+    @GetMapping(path = "/product", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CacheStatistics getProductCacheStatistics() {
+        return CacheStatistics.of(productCache.size(), productCache.stats());
+    }
+}
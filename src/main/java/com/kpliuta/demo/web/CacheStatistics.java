@@ -0,0 +1,10 @@
+package com.kpliuta.demo.web;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+public record CacheStatistics(long size, long hitCount, long missCount, double hitRate, long evictionCount) {
+
+    public static CacheStatistics of(long size, CacheStats stats) {
+        return new CacheStatistics(size, stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
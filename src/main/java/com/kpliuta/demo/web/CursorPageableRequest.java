@@ -0,0 +1,87 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.domain.Entity;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset pagination request. The opaque {@code after} cursor encodes the key of the last element of the previous page,
+ * its ID unless ordered otherwise, an empty cursor requests the first page.
+ */
+public record CursorPageableRequest(String after, int pageSize) {
+
+    /**
+     * Response header carrying the cursor of the next page, absent on the last page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Largest page size, pages are read with one more element to tell whether there is a next page.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static CursorPageableRequest of(String after, int pageSize) {
+        return new CursorPageableRequest(after, pageSize);
+    }
+
+    /**
+     * Decodes the cursor.
+     *
+     * @return key of the last element of the previous page or {@code null} for the first page
+     * @throws InvalidPageableRequestException if the cursor is malformed or the page size is not positive or exceeds
+     *                                         {@link #MAX_PAGE_SIZE}
+     */
+    public String afterId() {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidPageableRequestException();
+        }
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPageableRequestException();
+        }
+    }
+
+    /**
+     * Builds a list response for given slice, adding the {@link #NEXT_CURSOR_HEADER} if there is a next page.
+     *
+     * @param slice page content
+     * @return response
+     */
+    public static <T extends Entity> ResponseEntity<List<T>> toResponse(Slice<T> slice) {
+        List<T> content = slice.getContent();
+        return toResponse(content, slice.hasNext() ? content.get(content.size() - 1).getId() : null);
+    }
+
+    /**
+     * Builds a list response for given page content, adding the {@link #NEXT_CURSOR_HEADER} if there is a next page.
+     *
+     * @param content page content
+     * @param next    key of the last element to continue after or {@code null} on the last page
+     * @return response
+     */
+    public static <T> ResponseEntity<List<T>> toResponse(List<T> content, String next) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(NEXT_CURSOR_HEADER, encode(next));
+        }
+        return response.body(content);
+    }
+
+    /**
+     * Encodes a cursor pointing after given element key.
+     *
+     * @param id element key
+     * @return opaque cursor
+     */
+    public static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+}
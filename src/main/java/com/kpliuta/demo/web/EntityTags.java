@@ -0,0 +1,158 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.domain.Entity;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Weak entity tags derived from the ID and the version of an entity, which changes on every update. Tags are weak as
+ * the JSON, Smile and CBOR representations of a version and their gzipped encodings are equivalent but not identical,
+ * Tomcat also never compresses a response carrying a strong tag. Order tags also digest the versions of the products
+ * embedded in the order, as a product is updated without updating the orders referencing it.
+ */
+final class EntityTags {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    /**
+     * Path of the products embedded in orders.
+     */
+    static final String PRODUCT_PATH = "items.product";
+
+    private EntityTags() {
+    }
+
+    /**
+     * @return quoted entity tag
+     */
+    static String of(Entity entity) {
+        return of(entity.getId(), entity.getVersion());
+    }
+
+    /**
+     * @return quoted entity tag
+     */
+    static String of(String id, Integer version) {
+        return WEAK_PREFIX + "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * @return quoted entity tag of an order along with its products
+     */
+    static String of(Order order) {
+        return of(order, Fieldset.ALL);
+    }
+
+    /**
+     * @param order order along with its products if given fieldset includes them, other properties of its items are
+     *              not needed
+     * @return quoted entity tag of a representation of an order restricted to given fieldset, the tag of
+     * {@link #of(String, Integer, Fieldset)} if the fieldset does not include products
+     */
+    static String of(Order order, Fieldset fieldset) {
+        if (!fieldset.includes(PRODUCT_PATH)) {
+            return of(order.getId(), order.getVersion(), fieldset);
+        }
+        return WEAK_PREFIX + "\"" + order.getId() + "-" + order.getVersion() + "-" + digest(productVersions(order))
+                + (fieldset.isAll() ? "" : "-" + fieldset.tagSuffix()) + "\"";
+    }
+
+    /**
+     * @return quoted entity tag of a representation restricted to given fieldset
+     */
+    static String of(Entity entity, Fieldset fieldset) {
+        return of(entity.getId(), entity.getVersion(), fieldset);
+    }
+
+    /**
+     * @return quoted entity tag of a representation restricted to given fieldset, the tag of the full representation
+     * for {@link Fieldset#ALL}
+     */
+    static String of(String id, Integer version, Fieldset fieldset) {
+        return fieldset.isAll()
+                ? of(id, version)
+                : WEAK_PREFIX + "\"" + id + "-" + version + "-" + fieldset.tagSuffix() + "\"";
+    }
+
+    /**
+     * Applies an {@code If-Match} precondition to an entity to update: the version of the tag is the version the
+     * entity is updated from, as an alternative to the version of the entity.
+     *
+     * @param ifMatch {@code If-Match} header or {@code null}
+     * @param entity  entity to update
+     * @throws OptimisticLockingFailureException if the tag is not a tag of the entity or the entity carries another
+     *                                           version
+     */
+    static void applyIfMatch(String ifMatch, Entity entity) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals(ANY)) {
+            return;
+        }
+        Integer version = parseVersion(ifMatch.trim(), entity.getId());
+        if (version == null || entity.getVersion() != null && !entity.getVersion().equals(version)) {
+            throw new OptimisticLockingFailureException(String.format("If-Match %s does not match %s with ID %s",
+                    ifMatch, entity.getClass().getSimpleName(), entity.getId()));
+        }
+        entity.setVersion(version);
+    }
+
+    /**
+     * @return hex digest of given value, long enough for different values not to collide in practice
+     */
+    static String digest(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @return IDs and versions of the products of given order's items in the order of items, removed and missing
+     * products marked as such
+     */
+    private static String productVersions(Order order) {
+        StringBuilder versions = new StringBuilder();
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                Product product = item.getProduct();
+                if (product == null) {
+                    versions.append('-');
+                } else {
+                    versions.append(product.getId()).append(':')
+                            .append(product.isRemoved() ? "removed" : product.getVersion());
+                }
+                versions.append(',');
+            }
+        }
+        return versions.toString();
+    }
+
+    /**
+     * @return version of given tag or {@code null} if it is not a tag of an entity with given ID
+     */
+    private static Integer parseVersion(String tag, String id) {
+        if (tag.startsWith(WEAK_PREFIX)) {
+            tag = tag.substring(WEAK_PREFIX.length());
+        }
+        String prefix = "\"" + id + "-";
+        if (id == null || !tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            return null;
+        }
+        // the version is followed by the digests of order tags and tags of fieldsets, if any
+        int end = tag.indexOf('-', prefix.length());
+        try {
+            return Integer.valueOf(tag.substring(prefix.length(), end < 0 ? tag.length() - 1 : end));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.kpliuta.demo.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param timeout       maximum time an export streams for, unlike other requests handled asynchronously
+ * @param maxConcurrent maximum number of exports streaming at once on this node, further ones are rejected
+ */
+@ConfigurationProperties(prefix = "demo.export")
+public record ExportProperties(Duration timeout, int maxConcurrent) {
+}
@@ -0,0 +1,114 @@
+package com.kpliuta.demo.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Sparse fieldset requested with the {@code fields} query parameter: a comma-separated list of property paths such as
+ * {@code brand,name,price} or {@code customerId,items.quantity}. ID and version are always included. An absent or
+ * empty parameter selects all properties.
+ *
+ * @param paths requested paths without the ones nested in other requested paths, empty for all properties
+ */
+public record Fieldset(SortedSet<String> paths) {
+
+    public static final String PARAMETER = "fields";
+
+    public static final Fieldset ALL = new Fieldset(Collections.emptySortedSet());
+
+    private static final Pattern PATH_PATTERN = Pattern.compile("[A-Za-z][A-Za-z0-9]*(\\.[A-Za-z][A-Za-z0-9]*)*");
+    private static final int MAX_PATHS = 32;
+    private static final List<String> ALWAYS_INCLUDED = List.of("id", "version");
+
+    /**
+     * @param fields value of the {@code fields} query parameter or {@code null}
+     * @throws InvalidFieldsetException if a path is malformed or there are too many paths
+     */
+    public static Fieldset parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        String[] paths = fields.split(",");
+        if (paths.length > MAX_PATHS) {
+            throw new InvalidFieldsetException("At most " + MAX_PATHS + " fields can be requested");
+        }
+        SortedSet<String> requested = new TreeSet<>();
+        for (String path : paths) {
+            String trimmed = path.trim();
+            if (!PATH_PATTERN.matcher(trimmed).matches()) {
+                throw new InvalidFieldsetException("Invalid field: " + trimmed);
+            }
+            requested.add(trimmed);
+        }
+        // a path within a requested path is implied by it, and MongoDB rejects such overlapping projections
+        requested.removeIf(path -> requested.stream().anyMatch(other -> path.startsWith(other + ".")));
+        return new Fieldset(requested);
+    }
+
+    public boolean isAll() {
+        return paths.isEmpty();
+    }
+
+    /**
+     * @return whether the representation restricted to this fieldset includes any property of given path
+     */
+    public boolean includes(String path) {
+        return isAll() || paths.stream().anyMatch(requested -> requested.equals(path)
+                || path.startsWith(requested + ".") || requested.startsWith(path + "."));
+    }
+
+    /**
+     * @return suffix telling apart entity tags of representations with different fieldsets, a digest of the sorted
+     * paths so that the tag stays short however many paths are requested
+     */
+    String tagSuffix() {
+        return EntityTags.digest(String.join(",", paths));
+    }
+
+    /**
+     * Removes properties not selected by this fieldset from given serialized entity or array of entities.
+     *
+     * @param node serialized entity or array of entities, is modified
+     * @return given node
+     */
+    public JsonNode trim(JsonNode node) {
+        if (!isAll()) {
+            Map<String, Object> tree = new HashMap<>();
+            ALWAYS_INCLUDED.forEach(path -> tree.put(path, new HashMap<String, Object>()));
+            for (String path : paths) {
+                addPath(tree, path.split("\\."));
+            }
+            trim(node, tree);
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addPath(Map<String, Object> tree, String[] segments) {
+        Map<String, Object> node = tree;
+        for (String segment : segments) {
+            node = (Map<String, Object>) node.computeIfAbsent(segment, key -> new HashMap<String, Object>());
+        }
+    }
+
+    /**
+     * @param tree requested properties by name, with an empty map for a property requested as a whole
+     */
+    @SuppressWarnings("unchecked")
+    private static void trim(JsonNode node, Map<String, Object> tree) {
+        if (node.isArray()) {
+            node.forEach(element -> trim(element, tree));
+        } else if (node instanceof ObjectNode object) {
+            object.retain(tree.keySet());
+            tree.forEach((name, subtree) -> {
+                JsonNode value = object.get(name);
+                if (value != null && !((Map<String, Object>) subtree).isEmpty()) {
+                    trim(value, (Map<String, Object>) subtree);
+                }
+            });
+        }
+    }
+}
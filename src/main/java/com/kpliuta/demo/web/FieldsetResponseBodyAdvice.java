@@ -0,0 +1,49 @@
+package com.kpliuta.demo.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Arrays;
+
+/**
+ * Removes properties not selected by the {@link Fieldset} of the request from response bodies of handlers accepting a
+ * {@link Fieldset#PARAMETER} parameter. Projected entities have unselected properties unset, which would otherwise
+ * be written as {@code null}.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+class FieldsetResponseBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType)
+                && Arrays.stream(returnType.getExecutable().getParameters())
+                .map(parameter -> parameter.getAnnotation(RequestParam.class))
+                .anyMatch(requestParam -> requestParam != null && Fieldset.PARAMETER.equals(requestParam.name()));
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        Fieldset fieldset = Fieldset.parse(servletRequest.getServletRequest().getParameter(Fieldset.PARAMETER));
+        return fieldset.isAll() ? body : fieldset.trim(objectMapper.valueToTree(body));
+    }
+}
@@ -0,0 +1,27 @@
+package com.kpliuta.demo.web;
+
+import java.util.List;
+
+/**
+ * Outcome of an NDJSON import.
+ *
+ * @param lines           number of read lines, including blank ones
+ * @param created         number of inserted entities
+ * @param updated         number of updated entities
+ * @param rejected        number of rejected lines
+ * @param rejectedLines   first rejected lines, up to {@link NdjsonImporter#MAX_REPORTED_REJECTIONS}
+ * @param durationMillis  import duration
+ * @param linesPerSecond  import throughput
+ */
+public record ImportReport(long lines, long created, long updated, long rejected, List<RejectedLine> rejectedLines,
+                           long durationMillis, double linesPerSecond) {
+
+    /**
+     * @param line   line number, starting with 1
+     * @param status rejection reason, see {@link com.kpliuta.demo.repository.BulkItemResult.Status}, or
+     *               {@code MALFORMED} for lines that are not valid JSON
+     * @param error  details, if any
+     */
+    public record RejectedLine(long line, String status, String error) {
+    }
+}
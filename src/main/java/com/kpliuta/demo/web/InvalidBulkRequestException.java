@@ -0,0 +1,8 @@
+package com.kpliuta.demo.web;
+
+public class InvalidBulkRequestException extends RuntimeException {
+
+    public InvalidBulkRequestException(String message) {
+        super(message);
+    }
+}
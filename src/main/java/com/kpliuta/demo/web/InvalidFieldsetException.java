@@ -0,0 +1,8 @@
+package com.kpliuta.demo.web;
+
+public class InvalidFieldsetException extends RuntimeException {
+
+    public InvalidFieldsetException(String message) {
+        super(message);
+    }
+}
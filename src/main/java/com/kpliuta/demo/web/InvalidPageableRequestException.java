@@ -0,0 +1,4 @@
+package com.kpliuta.demo.web;
+
+public class InvalidPageableRequestException extends RuntimeException {
+}
@@ -0,0 +1,19 @@
+package com.kpliuta.demo.web;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types negotiated by the API in addition to the ones of {@link MediaType}.
+ */
+public final class MediaTypes {
+
+    /**
+     * Binary JSON of Jackson, the format of choice of Java clients. CBOR is the standardized alternative.
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    private MediaTypes() {
+    }
+}
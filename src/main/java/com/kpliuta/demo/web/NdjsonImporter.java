@@ -0,0 +1,176 @@
+package com.kpliuta.demo.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.kpliuta.demo.domain.Entity;
+import com.kpliuta.demo.repository.BulkItemResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads entities from a newline-delimited JSON body and writes them in batches while reading, so that no more than a
+ * batch of entities is held in memory regardless of the body size. Reading the body is paused while a batch is written,
+ * which slows the client down through TCP flow control. A line longer than {@link BulkProperties#maxLineLength()} fails
+ * the import with {@link InvalidBulkRequestException}, the lines before it stay imported.
+ */
+@Component
+@RequiredArgsConstructor
+class NdjsonImporter {
+
+    /**
+     * Maximum number of rejected lines listed in the report, further rejections are only counted.
+     */
+    static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    private static final String MALFORMED = "MALFORMED";
+
+    private final ObjectMapper objectMapper;
+    private final BulkWriter bulkWriter;
+    private final BulkProperties properties;
+
+    /**
+     * @param body      NDJSON body, one entity per line, blank lines are skipped
+     * @param type      entity type
+     * @param bulkWrite writes a batch of valid entities, see {@link BulkWriter#write(List, Function)}
+     * @return counts and rejected lines
+     */
+    <T extends Entity> ImportReport importEntities(InputStream body, Class<T> type,
+                                                   Function<List<T>, List<BulkItemResult>> bulkWrite)
+            throws IOException {
+        long start = System.nanoTime();
+        ObjectReader reader = objectMapper.readerFor(type);
+        Report report = new Report();
+        List<T> batch = new ArrayList<>(properties.batchSize());
+        List<Long> batchLines = new ArrayList<>(properties.batchSize());
+        try (LineReader lines = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8),
+                properties.maxLineLength())) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                report.lines++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(reader.readValue(line));
+                    batchLines.add(report.lines);
+                } catch (JsonProcessingException ex) {
+                    report.reject(report.lines, MALFORMED, ex.getOriginalMessage());
+                }
+                if (batch.size() == properties.batchSize()) {
+                    write(batch, batchLines, bulkWrite, report);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, batchLines, bulkWrite, report);
+        }
+        long durationNanos = System.nanoTime() - start;
+        return new ImportReport(report.lines, report.created, report.updated, report.rejected, report.rejectedLines,
+                durationNanos / 1_000_000, report.lines * 1e9 / Math.max(durationNanos, 1));
+    }
+
+    private <T extends Entity> void write(List<T> batch, List<Long> batchLines,
+                                          Function<List<T>, List<BulkItemResult>> bulkWrite, Report report) {
+        List<BulkItemResult> results = bulkWriter.write(batch, bulkWrite);
+        for (int i = 0; i < results.size(); i++) {
+            BulkItemResult result = results.get(i);
+            switch (result.status()) {
+                case CREATED -> report.created++;
+                case UPDATED -> report.updated++;
+                default -> report.reject(batchLines.get(i), result.status().name(), result.error());
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    /**
+     * Reads lines terminated as by {@link BufferedReader#readLine()}, failing on a line longer than given limit instead
+     * of buffering it.
+     */
+    private static final class LineReader implements Closeable {
+
+        private final Reader reader;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private long lines;
+        private boolean skipLineFeed;
+
+        LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * @return next line without its terminator, or {@code null} at the end of the input
+         */
+        String readLine() throws IOException {
+            line.setLength(0);
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(reader.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        return line.isEmpty() ? null : next();
+                    }
+                }
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (buffer[position] == '\n') {
+                        position++;
+                        continue;
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                    position++;
+                }
+                if (line.length() + position - start > maxLength) {
+                    throw new InvalidBulkRequestException("Line " + (lines + 1) + " is longer than " + maxLength
+                            + " characters, lines before it have been imported");
+                }
+                line.append(buffer, start, position - start);
+                if (position < limit) {
+                    skipLineFeed = buffer[position++] == '\r';
+                    return next();
+                }
+            }
+        }
+
+        private String next() {
+            lines++;
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static class Report {
+
+        long lines;
+        long created;
+        long updated;
+        long rejected;
+        final List<ImportReport.RejectedLine> rejectedLines = new ArrayList<>();
+
+        void reject(long line, String status, String error) {
+            rejected++;
+            if (rejectedLines.size() < MAX_REPORTED_REJECTIONS) {
+                rejectedLines.add(new ImportReport.RejectedLine(line, status, error));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.kpliuta.demo.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes elements of a stream as newline-delimited JSON, one element at a time, so that the response does not need to
+ * be held in memory. The response is written asynchronously with the {@link ExportProperties#timeout()} instead of the
+ * timeout of other asynchronous requests.
+ * <p>
+ * An export holds its thread for as long as it streams, so exports run on threads of their own, virtual ones if
+ * enabled, instead of the application task executor shared with other asynchronous work. At most
+ * {@link ExportProperties#maxConcurrent()} exports stream at once, further ones are rejected with a
+ * {@link TaskRejectedException} rather than queued.
+ */
+@Component
+class NdjsonWriter implements DisposableBean {
+
+    private static final String EXPORT_THREAD_PREFIX = "export-";
+
+    private final ObjectMapper objectMapper;
+    private final ExportProperties properties;
+    private final ThreadPoolTaskExecutor executor;
+
+    NdjsonWriter(ObjectMapper objectMapper, ExportProperties properties, Environment environment) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.maxConcurrent());
+        executor.setMaxPoolSize(properties.maxConcurrent());
+        executor.setQueueCapacity(0);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(Thread.ofVirtual().name(EXPORT_THREAD_PREFIX, 0).factory());
+        } else {
+            executor.setThreadNamePrefix(EXPORT_THREAD_PREFIX);
+        }
+        executor.initialize();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * @param response response to write to
+     * @param source   opens the stream to write, it is opened and closed on the thread writing the response
+     * @return task writing the response, rejected with a {@link TaskRejectedException} if too many exports stream
+     */
+    WebAsyncTask<Void> write(HttpServletResponse response, Supplier<? extends Stream<?>> source) {
+        // flushing is left to the output buffer instead of sending each element separately
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return new WebAsyncTask<>(properties.timeout().toMillis(), executor, () -> {
+            // set once the export runs, a rejected one is answered with an error instead
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            try (Stream<?> elements = source.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                Iterator<?> iterator = elements.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            }
+            return null;
+        });
+    }
+}
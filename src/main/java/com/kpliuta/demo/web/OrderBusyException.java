@@ -0,0 +1,20 @@
+package com.kpliuta.demo.web;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an update gives up waiting for the updates of the same order before it, the order itself may be updated
+ * by the time the update is retried.
+ */
+@Getter
+public class OrderBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public OrderBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,15 @@
+package com.kpliuta.demo.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param snapshotsMaxSize maximum number of order versions remembered as merge bases
+ * @param snapshotsTtl     time a returned order version can be used as a merge base
+ * @param maxAttempts      maximum number of merge attempts of a single update
+ * @param backoff          base delay before another attempt, doubled on every attempt and randomized
+ */
+@ConfigurationProperties(prefix = "demo.order.merge")
+public record OrderMergeProperties(int snapshotsMaxSize, Duration snapshotsTtl, int maxAttempts, Duration backoff) {
+}
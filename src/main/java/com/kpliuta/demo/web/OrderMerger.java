@@ -0,0 +1,118 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.repository.OrderPricing;
+import com.kpliuta.demo.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updates orders that may have been modified since the client read them: on a version mismatch, the changes made by
+ * the client since its base version are re-applied to the latest version, see
+ * {@link OrderSnapshot#merge(OrderSnapshot, Order, Order)}. The update fails only if the changes conflict, the base
+ * version is not remembered or the attempts are exhausted.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class OrderMerger {
+
+    private final OrderRepository orderRepository;
+    private final OrderPricing orderPricing;
+    private final OrderSnapshots orderSnapshots;
+    private final OrderMergeProperties properties;
+    private final Counter mergedCounter;
+    private final Counter retryCounter;
+    private final Counter conflictCounter;
+    private final Counter unknownBaseCounter;
+    private final Counter exhaustedCounter;
+
+    OrderMerger(OrderRepository orderRepository, OrderPricing orderPricing, OrderSnapshots orderSnapshots,
+                OrderMergeProperties properties, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.orderPricing = orderPricing;
+        this.orderSnapshots = orderSnapshots;
+        this.properties = properties;
+        this.mergedCounter = Counter.builder("demo.order.merge.merged")
+                .description("Order updates applied onto a newer version")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("demo.order.merge.retries")
+                .description("Merged order updates retried as the order has been modified again meanwhile")
+                .register(meterRegistry);
+        this.conflictCounter = counter(meterRegistry, "conflict");
+        this.unknownBaseCounter = counter(meterRegistry, "unknown_base");
+        this.exhaustedCounter = counter(meterRegistry, "exhausted");
+    }
+
+    /**
+     * @param order order with the version it was made from, priced with {@link OrderPricing}
+     * @return updated order, if found
+     * @throws OptimisticLockingFailureException if the order cannot be merged
+     */
+    Optional<Order> update(Order order) {
+        try {
+            return orderRepository.update(order);
+        } catch (OptimisticLockingFailureException ex) {
+            OrderSnapshot base = orderSnapshots.find(order.getId(), order.getVersion());
+            if (base == null) {
+                unknownBaseCounter.increment();
+                throw ex;
+            }
+            return merge(base, order);
+        }
+    }
+
+    private Optional<Order> merge(OrderSnapshot base, Order order) {
+        for (int attempt = 1; ; attempt++) {
+            Optional<Order> latest = orderRepository.findByIdWithProducts(order.getId(), List.of());
+            if (latest.isEmpty()) {
+                return latest;
+            }
+            Order merged = OrderSnapshot.merge(base, order, latest.get()).orElseThrow(() -> {
+                conflictCounter.increment();
+                return new OptimisticLockingFailureException(String.format(
+                        "Cannot merge Order with ID %s and version %s into version %s", order.getId(),
+                        order.getVersion(), latest.get().getVersion()));
+            });
+            try {
+                Optional<Order> updated = orderRepository.update(orderPricing.price(merged, latest.get()));
+                mergedCounter.increment();
+                return updated;
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= properties.maxAttempts()) {
+                    exhaustedCounter.increment();
+                    throw ex;
+                }
+                retryCounter.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Sleeps for a random time up to the backoff doubled per attempt, so that concurrent writers spread out.
+     */
+    private void backOff(int attempt) {
+        long maxNanos = properties.backoff().toNanos() << Math.min(attempt - 1, 10);
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(maxNanos + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockingFailureException("Interrupted while merging Order", ex);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("demo.order.merge.failures")
+                .description("Order updates rejected in merge mode")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -1,7 +1,12 @@
 package com.kpliuta.demo.web;
 
 import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.repository.BulkItemResult;
+import com.kpliuta.demo.repository.OrderItemCoalescer;
+import com.kpliuta.demo.repository.OrderPricing;
 import com.kpliuta.demo.repository.OrderRepository;
+import com.kpliuta.demo.repository.VersionProjection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -10,66 +15,271 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.kpliuta.demo.web.MediaTypes.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RequestMapping(path = "/api/order")
 @Tag(name = "Order", description = "Order API")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class OrderRestController {
 
+    /**
+     * Item positions are short decimal numbers, unlike product IDs.
+     */
+    static final Pattern ITEM_INDEX_PATTERN = Pattern.compile("\\d{1,9}");
+
+    /**
+     * Top-level and item properties are loaded as requested. Products are resolved only if requested.
+     */
+    private static final String FIELDS_DESCRIPTION = "Comma-separated properties to return, e.g. "
+            + "'customerId,items.quantity'. ID and version are always returned, all properties if absent";
+
     private final OrderRepository orderRepository;
+    private final OrderPricing orderPricing;
+    private final OrderItemCoalescer orderItemCoalescer;
+    private final OrderSnapshots orderSnapshots;
+    private final OrderMerger orderMerger;
+    private final OrderWriters orderWriters;
+    private final BulkWriter bulkWriter;
+    private final NdjsonWriter ndjsonWriter;
+    private final NdjsonImporter ndjsonImporter;
 
     @Operation(summary = "Return a list of orders", description = "Return a list of orders",
             parameters = {
                     @Parameter(in = ParameterIn.QUERY, name = "pageNumber", description = "Page number", required = true),
-                    @Parameter(in = ParameterIn.QUERY, name = "pageSize", description = "Page size", required = true)
+                    @Parameter(in = ParameterIn.QUERY, name = "pageSize", required = true,
+                            description = "Page size, at most " + CursorPageableRequest.MAX_PAGE_SIZE + " with a cursor"),
+                    @Parameter(in = ParameterIn.QUERY, name = Fieldset.PARAMETER, description = FIELDS_DESCRIPTION)
             })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful operation"),
-            @ApiResponse(responseCode = "400", description = "Invalid page number or page size input", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Invalid page number, page size or fields input", content = @Content)
     })
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Order> findOrders(@Schema(hidden = true) PageableRequest request) {
-        return orderRepository.findAll(PageRequest.of(request.pageNumber(), request.pageSize())).getContent();
+    @GetMapping(produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public List<Order> findOrders(@Schema(hidden = true) PageableRequest request,
+                                  @Parameter(hidden = true)
+                                  @RequestParam(name = Fieldset.PARAMETER, required = false) String fields) {
+        Fieldset fieldset = Fieldset.parse(fields);
+        List<Order> orders = orderRepository.findAllWithProducts(PageRequest.of(request.pageNumber(),
+                request.pageSize()), fieldset.paths());
+        if (fieldset.isAll()) {
+            orderSnapshots.rememberAll(orders);
+        }
+        return orders;
     }
 
-    @Operation(summary = "Return a single order", description = "Return a single order")
+    @Operation(summary = "Return a list of orders using keyset pagination",
+            description = "Return a list of orders following the given cursor. The cursor of the next page is returned in the "
+                    + CursorPageableRequest.NEXT_CURSOR_HEADER + " header, which is absent on the last page",
+            parameters = {
+                    // pageSize and fields are declared once by the page number operation, springdoc merges both into one
+                    @Parameter(in = ParameterIn.QUERY, name = "after",
+                            description = "Cursor, empty for the first page, selects keyset pagination instead of pageNumber")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, page size or fields input", content = @Content)
+    })
+    @GetMapping(params = "after", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Order>> findOrdersAfter(@Schema(hidden = true) CursorPageableRequest request,
+                                                       @Parameter(hidden = true)
+                                                       @RequestParam(name = Fieldset.PARAMETER, required = false) String fields) {
+        Fieldset fieldset = Fieldset.parse(fields);
+        Slice<Order> orders = orderRepository.findAllWithProductsAfter(request.afterId(), request.pageSize(),
+                fieldset.paths());
+        if (fieldset.isAll()) {
+            orderSnapshots.rememberAll(orders.getContent());
+        }
+        return CursorPageableRequest.toResponse(orders);
+    }
+
+    @Operation(summary = "Return a single order",
+            description = "Return a single order along with its entity tag. If-None-Match is checked against the "
+                    + "versions of the order and, if returned, of its products, without loading the rest of the order",
+            parameters = {
+                    @Parameter(in = ParameterIn.HEADER, name = HttpHeaders.IF_NONE_MATCH,
+                            description = "Entity tag of the cached order"),
+                    @Parameter(in = ParameterIn.QUERY, name = Fieldset.PARAMETER, description = FIELDS_DESCRIPTION)
+            })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "304", description = "Order not modified", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid fields input", content = @Content),
             @ApiResponse(responseCode = "404", description = "Order not found", content = @Content)
     })
-    @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Order findOrder(@PathVariable String id) {
-        return orderRepository.findById(id).orElseThrow(ObjectNotFoundException::new);
+    @GetMapping(path = "/{id}", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Order> findOrder(@PathVariable String id,
+                                           @Parameter(hidden = true)
+                                           @RequestParam(name = Fieldset.PARAMETER, required = false) String fields,
+                                           @Parameter(hidden = true) WebRequest request) {
+        Fieldset fieldset = Fieldset.parse(fields);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String eTag;
+            if (fieldset.includes(EntityTags.PRODUCT_PATH)) {
+                // products are mostly cached, so that this reads the product references of the order only
+                eTag = EntityTags.of(orderRepository.findByIdWithProducts(id, List.of(EntityTags.PRODUCT_PATH))
+                        .orElseThrow(ObjectNotFoundException::new), fieldset);
+            } else {
+                eTag = EntityTags.of(id, orderRepository.findVersionById(id)
+                        .map(VersionProjection::getVersion)
+                        .orElseThrow(ObjectNotFoundException::new), fieldset);
+            }
+            if (request.checkNotModified(eTag)) {
+                return null;
+            }
+        }
+        Order order = orderRepository.findByIdWithProducts(id, fieldset.paths()).orElseThrow(ObjectNotFoundException::new);
+        if (fieldset.isAll()) {
+            orderSnapshots.remember(order);
+        }
+        return ResponseEntity.ok().eTag(EntityTags.of(order, fieldset)).body(order);
     }
 
-    @Operation(summary = "Create a new order", description = "Create a new order")
+    @Operation(summary = "Export orders", description = "Stream all orders or orders of a customer ordered by ID as "
+            + "newline-delimited JSON. An interrupted export is resumed by passing the ID of the last exported order as 'after'",
+            parameters = {
+                    @Parameter(in = ParameterIn.QUERY, name = "customerId", description = "Customer ID"),
+                    @Parameter(in = ParameterIn.QUERY, name = "after", description = "Exclusive lower bound of order IDs"),
+                    @Parameter(in = ParameterIn.QUERY, name = "before", description = "Exclusive upper bound of order IDs")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "503", description = "Too many exports are running", content = @Content)
+    })
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportOrders(@RequestParam(required = false) String customerId,
+                                           @RequestParam(required = false) String after,
+                                           @RequestParam(required = false) String before,
+                                           HttpServletResponse response) {
+        return ndjsonWriter.write(response, () -> orderRepository.streamWithProducts(customerId, after, before));
+    }
+
+    @Operation(summary = "Create a new order",
+            description = "Create a new order. Item unit prices and the order total are set from the current product "
+                    + "prices, items must not reference removed products")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful operation"),
             @ApiResponse(responseCode = "400", description = "Validation exception", content = @Content)    // TODO
     })
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Order createOrder(@RequestBody Order order) {
-        return orderRepository.save(order);
+    @PostMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Order> createOrder(@RequestBody Order order) {
+        return withEntityTag(orderRepository.save(orderPricing.price(order)));
     }
 
-    @Operation(summary = "Update an existing order", description = "Update an existing order")
+    @Operation(summary = "Create or update orders in bulk",
+            description = "Insert orders without a version and update orders with a version matching the stored one, "
+                    + "in batches of unordered bulk writes. Returns a result per order in request order: "
+                    + "CREATED, UPDATED, NOT_FOUND, VERSION_CONFLICT (the stored version does not match), "
+                    + "ALREADY_EXISTS (inserted with the ID of a stored one), INVALID (validation error) or FAILED")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Too many orders", content = @Content)
+    })
+    @PostMapping(path = "/bulk",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public List<BulkItemResult> bulkWriteOrders(@RequestBody List<Order> orders) {
+        return bulkWriter.write(orders, batch -> orderRepository.bulkWrite(orderPricing.price(batch)));
+    }
+
+    @Operation(summary = "Import orders",
+            description = "Read orders from a newline-delimited JSON body and write them in batches while reading. "
+                    + "Orders are inserted or updated as by the bulk endpoint. Returns the number of created and updated "
+                    + "orders and the rejected lines")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Line too long, lines before it have been imported", content = @Content)
+    })
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ImportReport importOrders(InputStream body) throws IOException {
+        return ndjsonImporter.importEntities(body, Order.class,
+                batch -> orderRepository.bulkWrite(orderPricing.price(batch)));
+    }
+
+    @Operation(summary = "Update an existing order",
+            description = "Update an existing order. Items of products the stored order has keep their unit prices, "
+                    + "other items are priced at the current product prices and must not reference removed products, "
+                    + "and the order total is set accordingly. In merge mode, an order modified meanwhile is updated as well: "
+                    + "the changes of the customer and of the product quantities made since the given version, as "
+                    + "returned by this instance recently, are applied to the latest version")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful operation"),
             @ApiResponse(responseCode = "400", description = "Validation exception", content = @Content),   // TODO
             @ApiResponse(responseCode = "404", description = "Order not found", content = @Content),
-            @ApiResponse(responseCode = "412", description = "Order has been modified meanwhile", content = @Content)
+            @ApiResponse(responseCode = "412", description = "Order has been modified meanwhile, in merge mode "
+                    + "only if the modifications conflict or the given version is unknown", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Order is being updated by too many requests, retry "
+                    + "after the time given by the Retry-After header", content = @Content)
     })
-    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Order updateOrder(@RequestBody Order order) {
-        orderRepository.findById(order.getId()).orElseThrow(ObjectNotFoundException::new);
-        return orderRepository.save(order);
+    @PutMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Order> updateOrder(@RequestBody Order order,
+                                             @Parameter(description = "Entity tag of the order to update, an "
+                                                     + "alternative to the version in the body")
+                                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             @Parameter(description = "Merge the order into a newer version")
+                                             @RequestParam(defaultValue = "false") boolean merge) {
+        EntityTags.applyIfMatch(ifMatch, order);
+        orderPricing.priceReplacement(order);
+        return withEntityTag(orderWriters.write(order.getId(),
+                        () -> merge ? orderMerger.update(order) : orderRepository.update(order))
+                .orElseThrow(ObjectNotFoundException::new));
+    }
+
+    @Operation(summary = "Add an item to an order",
+            description = "Append an item priced at the current product price to an order and update the order total "
+                    + "in a single atomic update, regardless of the order's version. The product must not be removed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Validation exception", content = @Content),   // TODO
+            @ApiResponse(responseCode = "404", description = "Order not found", content = @Content)
+    })
+    @PostMapping(path = "/{id}/items",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Order> addOrderItem(@PathVariable String id, @RequestBody OrderItem item) {
+        return withEntityTag(orderItemCoalescer.addItem(id, orderPricing.price(item)).orElseThrow(ObjectNotFoundException::new));
+    }
+
+    @Operation(summary = "Remove items from an order",
+            description = "Remove an item by its position or all items referencing a product by the product's ID "
+                    + "from an order and update the order total in a single atomic update, regardless of the order's "
+                    + "version")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "404", description = "Order or item not found", content = @Content)
+    })
+    @DeleteMapping(path = "/{id}/items/{item}",
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Order> removeOrderItems(@PathVariable String id,
+                                                  @Parameter(description = "Item position or product ID")
+                                                  @PathVariable String item) {
+        return withEntityTag((ITEM_INDEX_PATTERN.matcher(item).matches()
+                ? orderItemCoalescer.removeItem(id, Integer.parseInt(item))
+                : orderItemCoalescer.removeItems(id, item)
+        ).orElseThrow(ObjectNotFoundException::new));
     }
 
 
@@ -80,5 +290,11 @@ public class OrderRestController {
     @DeleteMapping("/{id}")
     public void deleteOrder(@PathVariable String id) {
         orderRepository.deleteById(id);
+        orderSnapshots.invalidate(id);
+    }
+
+    private ResponseEntity<Order> withEntityTag(Order order) {
+        orderSnapshots.remember(order);
+        return ResponseEntity.ok().eTag(EntityTags.of(order)).body(order);
     }
 }
@@ -0,0 +1,114 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+
+import java.util.*;
+
+/**
+ * Merge-relevant state of an order version: the customer and the total quantity of each product. Items of a product
+ * are compared by their total quantity, so that their split into items or their position does not matter.
+ *
+ * @param quantities total quantities by product ID in the order of first occurrence
+ */
+record OrderSnapshot(String customerId, Map<String, Integer> quantities) {
+
+    static OrderSnapshot of(Order order) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                quantities.merge(productId(item), item.getQuantity(), Integer::sum);
+            }
+        }
+        return new OrderSnapshot(order.getCustomerId(), Collections.unmodifiableMap(quantities));
+    }
+
+    /**
+     * Applies the changes made from given base to given submitted order onto given latest order: the customer and the
+     * quantities of products changed by the submitted order are taken from it, anything else from the latest order.
+     *
+     * @param base      version the submitted order was made from
+     * @param submitted submitted order
+     * @param latest    latest stored version
+     * @return merged order with the version of the latest order or empty if the latest order changed a property
+     * differently than the submitted order
+     */
+    static Optional<Order> merge(OrderSnapshot base, Order submitted, Order latest) {
+        OrderSnapshot ours = of(submitted);
+        OrderSnapshot theirs = of(latest);
+
+        String customerId = theirs.customerId();
+        if (!Objects.equals(base.customerId(), ours.customerId())) {
+            if (!Objects.equals(base.customerId(), theirs.customerId())
+                    && !Objects.equals(ours.customerId(), theirs.customerId())) {
+                return Optional.empty();
+            }
+            customerId = ours.customerId();
+        }
+
+        Set<String> productIds = new LinkedHashSet<>(base.quantities().keySet());
+        productIds.addAll(ours.quantities().keySet());
+        Map<String, Integer> changedQuantities = new HashMap<>();
+        for (String productId : productIds) {
+            Integer baseQuantity = base.quantities().get(productId);
+            Integer ourQuantity = ours.quantities().get(productId);
+            Integer theirQuantity = theirs.quantities().get(productId);
+            if (Objects.equals(baseQuantity, ourQuantity) || Objects.equals(ourQuantity, theirQuantity)) {
+                continue;
+            }
+            if (!Objects.equals(baseQuantity, theirQuantity)) {
+                return Optional.empty();
+            }
+            changedQuantities.put(productId, ourQuantity);
+        }
+
+        Order merged = Order.builder()
+                .customerId(customerId)
+                .items(mergeItems(submitted, latest, changedQuantities))
+                .build();
+        merged.setId(latest.getId());
+        merged.setVersion(latest.getVersion());
+        return Optional.of(merged);
+    }
+
+    /**
+     * Keeps items of the latest order, replacing the items of each changed product by a single item at the position of
+     * the first one, and appends items of products added by the submitted order.
+     *
+     * @param changedQuantities new total quantities by product ID, {@code null} for removed products
+     */
+    private static List<OrderItem> mergeItems(Order submitted, Order latest, Map<String, Integer> changedQuantities) {
+        Map<String, OrderItem> submittedItems = new LinkedHashMap<>();
+        for (OrderItem item : nullToEmpty(submitted.getItems())) {
+            submittedItems.putIfAbsent(productId(item), item);
+        }
+        List<OrderItem> items = new ArrayList<>();
+        Set<String> replaced = new HashSet<>();
+        for (OrderItem item : nullToEmpty(latest.getItems())) {
+            String productId = productId(item);
+            if (!changedQuantities.containsKey(productId)) {
+                items.add(item);
+            } else if (replaced.add(productId) && changedQuantities.get(productId) != null) {
+                items.add(withQuantity(item, changedQuantities.get(productId)));
+            }
+        }
+        submittedItems.forEach((productId, item) -> {
+            if (changedQuantities.get(productId) != null && replaced.add(productId)) {
+                items.add(withQuantity(item, changedQuantities.get(productId)));
+            }
+        });
+        return items;
+    }
+
+    private static String productId(OrderItem item) {
+        return item.getProduct() != null ? item.getProduct().getId() : null;
+    }
+
+    private static OrderItem withQuantity(OrderItem item, int quantity) {
+        return OrderItem.builder().quantity(quantity).product(item.getProduct()).unitPrice(item.getUnitPrice()).build();
+    }
+
+    private static List<OrderItem> nullToEmpty(List<OrderItem> items) {
+        return items != null ? items : List.of();
+    }
+}
@@ -0,0 +1,75 @@
+package com.kpliuta.demo.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kpliuta.demo.domain.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Bounded memory of order versions returned to clients, the bases of merged updates. As every update increments the
+ * version, a remembered version never becomes stale by updates. An order deleted and created again with the same ID
+ * starts over with the versions of the deleted one though, so that the versions of a deleted order are forgotten, on
+ * deletes made by any node if change streams are enabled.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class OrderSnapshots {
+
+    private final Cache<Key, OrderSnapshot> cache;
+
+    OrderSnapshots(OrderMergeProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.snapshotsMaxSize())
+                .expireAfterWrite(properties.snapshotsTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orderSnapshot");
+    }
+
+    /**
+     * Remembers given orders, which must carry all their properties.
+     */
+    void rememberAll(Collection<Order> orders) {
+        orders.forEach(this::remember);
+    }
+
+    /**
+     * Remembers given order, which must carry all its properties.
+     */
+    void remember(Order order) {
+        if (order.getId() != null && order.getVersion() != null) {
+            cache.put(new Key(order.getId(), order.getVersion()), OrderSnapshot.of(order));
+        }
+    }
+
+    /**
+     * @return remembered version of an order or {@code null}
+     */
+    OrderSnapshot find(String id, Integer version) {
+        return id != null && version != null ? cache.getIfPresent(new Key(id, version)) : null;
+    }
+
+    /**
+     * Forgets all versions of a deleted order. Walks all remembered versions, as orders are rarely deleted.
+     *
+     * @param id order ID
+     */
+    public void invalidate(String id) {
+        cache.asMap().keySet().removeIf(key -> key.id().equals(id));
+    }
+
+    /**
+     * Forgets all orders.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private record Key(String id, int version) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.repository.BrandRevenue;
+import com.kpliuta.demo.repository.CustomerSpend;
+import com.kpliuta.demo.repository.OrderRepository;
+import com.kpliuta.demo.repository.ProductSales;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static com.kpliuta.demo.web.MediaTypes.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RequestMapping(path = "/api/order/stats")
+@Tag(name = "Order Statistics", description = "Order statistics API")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class OrderStatsRestController {
+
+    static final int MAX_LIMIT = 1000;
+
+    /**
+     * Applies to all statistics.
+     */
+    private static final String DESCRIPTION_SUFFIX = ". Revenue is based on the unit prices of the order items. "
+            + "Statistics are either computed on request or refreshed periodically, as configured";
+
+    private final OrderRepository orderRepository;
+
+    @Operation(summary = "Return revenue by brand",
+            description = "Return the ordered quantity and revenue of every brand, highest revenue first"
+                    + DESCRIPTION_SUFFIX)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation")
+    })
+    @GetMapping(path = "/brands", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public List<BrandRevenue> findRevenueByBrand() {
+        return orderRepository.findRevenueByBrand();
+    }
+
+    @Operation(summary = "Return top products",
+            description = "Return the ordered quantity and revenue of the products with the highest revenue, highest "
+                    + "first" + DESCRIPTION_SUFFIX)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit input", content = @Content)
+    })
+    @GetMapping(path = "/products", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public List<ProductSales> findTopProducts(@Parameter(description = "Maximum number of products, up to " + MAX_LIMIT)
+                                              @RequestParam(defaultValue = "10") int limit) {
+        return orderRepository.findTopProducts(validateLimit(limit));
+    }
+
+    @Operation(summary = "Return customer spend",
+            description = "Return the number of orders and the spend of the customers with the highest spend, highest "
+                    + "first, or of a single customer" + DESCRIPTION_SUFFIX)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit input", content = @Content)
+    })
+    @GetMapping(path = "/customers", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public List<CustomerSpend> findCustomerSpend(@Parameter(description = "Customer ID, all customers if absent")
+                                                 @RequestParam(required = false) String customerId,
+                                                 @Parameter(description = "Maximum number of customers, up to "
+                                                         + MAX_LIMIT)
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        return orderRepository.findCustomerSpend(customerId, validateLimit(limit));
+    }
+
+    private static int validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidPageableRequestException();
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,18 @@
+package com.kpliuta.demo.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param enabled               whether updates of the same order are serialized on this node
+ * @param maxWait               maximum time an update waits for the updates of the same order before it on a virtual
+ *                              thread, it is rejected with 503 afterward
+ * @param platformThreadMaxWait maximum wait on a platform thread, kept short as a waiting update holds a servlet thread
+ *                              that updates of other orders could use
+ * @param retryAfter            time clients are told to wait before retrying a rejected update
+ */
+@ConfigurationProperties(prefix = "demo.order.writer")
+public record OrderWriterProperties(boolean enabled, Duration maxWait, Duration platformThreadMaxWait,
+                                    Duration retryAfter) {
+}
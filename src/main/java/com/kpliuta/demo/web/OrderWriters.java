@@ -0,0 +1,119 @@
+package com.kpliuta.demo.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes updates of the same order on this node if enabled: a single update of an order runs at a time, further
+ * ones wait in arrival order, while updates of different orders run in parallel. Concurrent updates then no longer
+ * read the same version and fail all but one, which leaves version mismatches to stale clients and other nodes.
+ * <p>
+ * Updates run and wait on the threads of their requests. A waiting update parks its thread, which costs little with
+ * virtual threads, so it may wait for {@link OrderWriterProperties#maxWait()}. On platform threads it holds one of the
+ * servlet threads, which a burst of updates of a hot order would otherwise take from updates of other orders, so it
+ * waits for {@link OrderWriterProperties#platformThreadMaxWait()} only. A writer is held only while updates of its
+ * order run or wait, so that idle orders take no memory.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class OrderWriters {
+
+    private final OrderWriterProperties properties;
+    private final Duration maxWait;
+    private final ConcurrentMap<String, Writer> writers = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    OrderWriters(OrderWriterProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.maxWait = Threading.VIRTUAL.isActive(environment)
+                ? properties.maxWait()
+                : properties.platformThreadMaxWait();
+        this.waitTimer = Timer.builder("demo.order.writer.wait")
+                .description("Time order updates waited for the updates of the same order before them")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("demo.order.writer.timeouts")
+                .description("Order updates rejected as they waited too long for the updates of the same order")
+                .register(meterRegistry);
+        Gauge.builder("demo.order.writer.queued", waiting, AtomicInteger::get)
+                .description("Order updates waiting for the updates of the same order before them")
+                .register(meterRegistry);
+        Gauge.builder("demo.order.writer.orders", writers, ConcurrentMap::size)
+                .description("Orders being updated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs given update once no other update of given order runs on this node.
+     *
+     * @param id ID of the updated order, updates without an ID are not serialized
+     * @return result of the update
+     * @throws OrderBusyException if the update waited for longer than the maximum wait or was interrupted meanwhile
+     */
+    <T> T write(String id, Supplier<T> update) {
+        if (!properties.enabled() || id == null) {
+            return update.get();
+        }
+        Writer writer = writers.compute(id, (key, current) -> {
+            Writer next = current == null ? new Writer() : current;
+            next.users++;
+            return next;
+        });
+        try {
+            acquire(id, writer.lock);
+            try {
+                return update.get();
+            } finally {
+                writer.lock.unlock();
+            }
+        } finally {
+            writers.computeIfPresent(id, (key, current) -> --current.users == 0 ? null : current);
+        }
+    }
+
+    private void acquire(String id, ReentrantLock lock) {
+        boolean acquired;
+        waiting.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            acquired = lock.tryLock(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            OrderBusyException busy = new OrderBusyException("Interrupted while waiting to update Order with ID " + id,
+                    properties.retryAfter());
+            busy.initCause(ex);
+            throw busy;
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            timeoutCounter.increment();
+            throw new OrderBusyException("Order with ID " + id + " is being updated", properties.retryAfter());
+        }
+    }
+
+    /**
+     * Lock of an order along with the number of updates holding or waiting for it, counted only while mapped.
+     */
+    private static final class Writer {
+
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int users;
+    }
+}
@@ -1,7 +1,11 @@
 package com.kpliuta.demo.web;
 
+import com.kpliuta.demo.cache.ProductCache;
 import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.BulkItemResult;
 import com.kpliuta.demo.repository.ProductRepository;
+import com.kpliuta.demo.repository.ProductSearch;
+import com.kpliuta.demo.repository.ProductSearchResult;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -10,49 +14,163 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Example;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
+import static com.kpliuta.demo.web.MediaTypes.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
 @RequestMapping(path = "/api/product")
 @Tag(name = "Product", description = "Product API")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class ProductRestController {
 
+    private static final String FIELDS_DESCRIPTION = "Comma-separated properties to return, e.g. "
+            + "'brand,name,price'. ID and version are always returned, all properties if absent";
+
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final BulkWriter bulkWriter;
+    private final NdjsonWriter ndjsonWriter;
+    private final NdjsonImporter ndjsonImporter;
 
     @Operation(summary = "Return a list of products", description = "Return a list of products",
             parameters = {
                     @Parameter(in = ParameterIn.QUERY, name = "pageNumber", description = "Page number", required = true),
-                    @Parameter(in = ParameterIn.QUERY, name = "pageSize", description = "Page size", required = true)
+                    @Parameter(in = ParameterIn.QUERY, name = "pageSize", required = true,
+                            description = "Page size, at most " + CursorPageableRequest.MAX_PAGE_SIZE + " with a cursor"),
+                    @Parameter(in = ParameterIn.QUERY, name = Fieldset.PARAMETER, description = FIELDS_DESCRIPTION)
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Invalid page number, page size or fields input", content = @Content)
+    })
+    @GetMapping(produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public List<Product> findProducts(@Schema(hidden = true) PageableRequest request,
+                                      @Parameter(hidden = true)
+                                      @RequestParam(name = Fieldset.PARAMETER, required = false) String fields) {
+        return productRepository.findAllNotRemoved(PageRequest.of(request.pageNumber(), request.pageSize()),
+                Fieldset.parse(fields).paths());
+    }
+
+    @Operation(summary = "Return a list of products using keyset pagination",
+            description = "Return a list of products following the given cursor. The cursor of the next page is returned in the "
+                    + CursorPageableRequest.NEXT_CURSOR_HEADER + " header, which is absent on the last page",
+            parameters = {
+                    // pageSize and fields are declared once by the page number operation, springdoc merges both into one
+                    @Parameter(in = ParameterIn.QUERY, name = "after",
+                            description = "Cursor, empty for the first page, selects keyset pagination instead of pageNumber")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, page size or fields input", content = @Content)
+    })
+    @GetMapping(params = "after", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Product>> findProductsAfter(@Schema(hidden = true) CursorPageableRequest request,
+                                                           @Parameter(hidden = true)
+                                                           @RequestParam(name = Fieldset.PARAMETER, required = false) String fields) {
+        return CursorPageableRequest.toResponse(productRepository.findAllAfter(request.afterId(), request.pageSize(),
+                Fieldset.parse(fields).paths()));
+    }
+
+    @Operation(summary = "Search products",
+            description = "Return non-removed products matching all given criteria, the most relevant to the searched "
+                    + "text first if any, the cheapest first otherwise. The cursor of the next page is returned in the "
+                    + CursorPageableRequest.NEXT_CURSOR_HEADER + " header, which is absent on the last page",
+            parameters = {
+                    @Parameter(in = ParameterIn.QUERY, name = "after", description = "Cursor, absent for the first page"),
+                    @Parameter(in = ParameterIn.QUERY, name = "pageSize", required = true,
+                            description = "Page size, at most " + CursorPageableRequest.MAX_PAGE_SIZE),
+                    @Parameter(in = ParameterIn.QUERY, name = Fieldset.PARAMETER, description = FIELDS_DESCRIPTION)
             })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful operation"),
-            @ApiResponse(responseCode = "400", description = "Invalid page number or page size input", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Invalid criteria, cursor, page size or fields input",
+                    content = @Content)
     })
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Product> findProducts(@Schema(hidden = true) PageableRequest request) {
-        Product product = new Product();
-        product.setRemoved(false);
-        return productRepository.findAll(
-                Example.of(product),
-                PageRequest.of(request.pageNumber(), request.pageSize())
-        ).getContent();
+    @GetMapping(path = "/search", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Product>> searchProducts(@Parameter(description = "Words or quoted phrases searched in "
+                                                                + "product names and descriptions")
+                                                        @RequestParam(required = false) String q,
+                                                        @Parameter(description = "Brand")
+                                                        @RequestParam(required = false) String brand,
+                                                        @Parameter(description = "Inclusive lower price bound")
+                                                        @RequestParam(required = false) BigDecimal minPrice,
+                                                        @Parameter(description = "Inclusive upper price bound")
+                                                        @RequestParam(required = false) BigDecimal maxPrice,
+                                                        @Schema(hidden = true) CursorPageableRequest request,
+                                                        @Parameter(hidden = true)
+                                                        @RequestParam(name = Fieldset.PARAMETER, required = false)
+                                                        String fields) {
+        ProductSearch search = new ProductSearch(q, brand, minPrice, maxPrice);
+        String after = request.afterId();
+        Fieldset fieldset = Fieldset.parse(fields);
+        ProductSearchResult result;
+        try {
+            result = productRepository.search(search, after, request.pageSize(), fieldset.paths());
+        } catch (IllegalArgumentException ex) {
+            // a cursor of another search or a price beyond Decimal128
+            throw new InvalidPageableRequestException();
+        }
+        return CursorPageableRequest.toResponse(result.products(), result.next());
     }
 
-    @Operation(summary = "Return a single product", description = "Return a single product")
+    @Operation(summary = "Return a single product",
+            description = "Return a single product along with its entity tag",
+            parameters = {
+                    @Parameter(in = ParameterIn.HEADER, name = HttpHeaders.IF_NONE_MATCH,
+                            description = "Entity tag of the cached product"),
+                    @Parameter(in = ParameterIn.QUERY, name = Fieldset.PARAMETER, description = FIELDS_DESCRIPTION)
+            })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "304", description = "Product not modified", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid fields input", content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found", content = @Content)
     })
-    @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Product findProduct(@PathVariable String id) {
-        return productRepository.findById(id).orElseThrow(ObjectNotFoundException::new);
+    @GetMapping(path = "/{id}", produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Product> findProduct(@PathVariable String id,
+                                               @Parameter(hidden = true)
+                                               @RequestParam(name = Fieldset.PARAMETER, required = false) String fields) {
+        // served from the cache as a whole, If-None-Match is checked against the returned tag before the body is
+        // written and the body is restricted to the fieldset while being written
+        Fieldset fieldset = Fieldset.parse(fields);
+        Product product = productCache.findById(id)
+                .filter(cachedProduct -> !cachedProduct.isRemoved())
+                .orElseThrow(ObjectNotFoundException::new);
+        return ResponseEntity.ok().eTag(EntityTags.of(product, fieldset)).body(product);
+    }
+
+    @Operation(summary = "Export products", description = "Stream non-removed products ordered by ID as "
+            + "newline-delimited JSON. An interrupted export is resumed by passing the ID of the last exported product as 'after'",
+            parameters = {
+                    @Parameter(in = ParameterIn.QUERY, name = "after", description = "Exclusive lower bound of product IDs"),
+                    @Parameter(in = ParameterIn.QUERY, name = "before", description = "Exclusive upper bound of product IDs")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "503", description = "Too many exports are running", content = @Content)
+    })
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportProducts(@RequestParam(required = false) String after,
+                                             @RequestParam(required = false) String before,
+                                             HttpServletResponse response) {
+        return ndjsonWriter.write(response, () -> productRepository.streamAll(after, before));
     }
 
     @Operation(summary = "Create a new product", description = "Create a new product")
@@ -60,9 +178,42 @@ public class ProductRestController {
             @ApiResponse(responseCode = "200", description = "Successful operation"),
             @ApiResponse(responseCode = "400", description = "Validation exception", content = @Content)    // TODO
     })
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Product createProduct(@RequestBody Product product) {
-        return productRepository.save(product);
+    @PostMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Product> createProduct(@RequestBody Product product) {
+        Product createdProduct = productRepository.save(product);
+        productCache.invalidate(createdProduct.getId());
+        return withEntityTag(createdProduct);
+    }
+
+    @Operation(summary = "Create or update products in bulk",
+            description = "Insert products without a version and update products with a version matching the stored one, "
+                    + "in batches of unordered bulk writes. Returns a result per product in request order: "
+                    + "CREATED, UPDATED, NOT_FOUND, VERSION_CONFLICT (the stored version does not match), "
+                    + "ALREADY_EXISTS (inserted with the ID of a stored one), INVALID (validation error) or FAILED")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Too many products", content = @Content)
+    })
+    @PostMapping(path = "/bulk",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public List<BulkItemResult> bulkWriteProducts(@RequestBody List<Product> products) {
+        return bulkWriter.write(products, this::bulkWrite);
+    }
+
+    @Operation(summary = "Import products",
+            description = "Read products from a newline-delimited JSON body and write them in batches while reading. "
+                    + "Products are inserted or updated as by the bulk endpoint. Returns the number of created and updated "
+                    + "products and the rejected lines")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Line too long, lines before it have been imported", content = @Content)
+    })
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ImportReport importProducts(InputStream body) throws IOException {
+        return ndjsonImporter.importEntities(body, Product.class, this::bulkWrite);
     }
 
     @Operation(summary = "Update an existing product", description = "Update an existing product")
@@ -72,10 +223,17 @@ public class ProductRestController {
             @ApiResponse(responseCode = "404", description = "Product not found", content = @Content),
             @ApiResponse(responseCode = "412", description = "Product has been modified meanwhile", content = @Content)
     })
-    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Product updateProduct(@RequestBody Product product) {
-        productRepository.findById(product.getId()).orElseThrow(ObjectNotFoundException::new);
-        return productRepository.save(product);
+    @PutMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Product> updateProduct(@RequestBody Product product,
+                                                 @Parameter(description = "Entity tag of the product to update, an "
+                                                         + "alternative to the version in the body")
+                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                                 String ifMatch) {
+        EntityTags.applyIfMatch(ifMatch, product);
+        Product updatedProduct = productRepository.update(product).orElseThrow(ObjectNotFoundException::new);
+        productCache.invalidate(updatedProduct.getId());
+        return withEntityTag(updatedProduct);
     }
 
 
@@ -86,5 +244,18 @@ public class ProductRestController {
     @DeleteMapping("/{id}")
     public void deleteProduct(@PathVariable String id) {
         productRepository.findAndSetRemovedById(id);
+        productCache.invalidate(id);
+    }
+
+    private static ResponseEntity<Product> withEntityTag(Product product) {
+        return ResponseEntity.ok().eTag(EntityTags.of(product)).body(product);
+    }
+
+    private List<BulkItemResult> bulkWrite(List<Product> products) {
+        List<BulkItemResult> results = productRepository.bulkWrite(products);
+        results.stream()
+                .filter(result -> result.id() != null)
+                .forEach(result -> productCache.invalidate(result.id()));
+        return results;
     }
 }
@@ -0,0 +1,114 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.repository.ReactiveOrderPricing;
+import com.kpliuta.demo.repository.ReactiveOrderRepository;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.kpliuta.demo.web.OrderRestController.ITEM_INDEX_PATTERN;
+
+/**
+ * Non-blocking implementation of the {@link OrderRestController} contract, served with the {@code reactive} profile.
+ * List responses are written as orders are read, so a slow client slows down reading the cursor. Only JSON bodies are
+ * negotiated, sparse fieldsets and merge mode are rejected with 400 and the bulk, import and export endpoints with 404.
+ */
+@RequestMapping(path = "/api/order")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveOrderRestController {
+
+    private final ReactiveOrderRepository orderRepository;
+    private final ReactiveOrderPricing orderPricing;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<Order> findOrders(@Schema(hidden = true) PageableRequest request,
+                                  @RequestParam(name = Fieldset.PARAMETER, required = false) String fields) {
+        ReactiveRequests.rejectFieldset(fields);
+        return orderRepository.findAllWithProducts(PageRequest.of(request.pageNumber(), request.pageSize()));
+    }
+
+    @GetMapping(params = "after", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<Order>>> findOrdersAfter(@Schema(hidden = true) CursorPageableRequest request,
+                                                             @RequestParam(name = Fieldset.PARAMETER, required = false)
+                                                             String fields) {
+        ReactiveRequests.rejectFieldset(fields);
+        return orderRepository.findAllWithProductsAfter(request.afterId(), request.pageSize())
+                .map(CursorPageableRequest::toResponse);
+    }
+
+    @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Order>> findOrder(@PathVariable String id,
+                                                 @RequestParam(name = Fieldset.PARAMETER, required = false) String fields,
+                                                 ServerWebExchange exchange) {
+        ReactiveRequests.rejectFieldset(fields);
+        // the tag depends on the products of the order, so that the order is loaded to check If-None-Match
+        return orderRepository.findByIdWithProducts(id)
+                .switchIfEmpty(Mono.error(ObjectNotFoundException::new))
+                .flatMap(order -> exchange.checkNotModified(EntityTags.of(order))
+                        ? Mono.empty()
+                        : Mono.just(withEntityTag(order)));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Order>> createOrder(@RequestBody Order order) {
+        return orderPricing.price(order).flatMap(orderRepository::save).map(ReactiveOrderRestController::withEntityTag);
+    }
+
+    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Order>> updateOrder(@RequestBody Order order,
+                                                   @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                                   String ifMatch,
+                                                   @RequestParam(defaultValue = "false") boolean merge) {
+        ReactiveRequests.rejectMerge(merge);
+        EntityTags.applyIfMatch(ifMatch, order);
+        return orderPricing.priceReplacement(order)
+                .flatMap(orderRepository::update)
+                .switchIfEmpty(Mono.error(ObjectNotFoundException::new))
+                .map(ReactiveOrderRestController::withEntityTag);
+    }
+
+    @PostMapping(path = "/{id}/items", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Order>> addOrderItem(@PathVariable String id, @RequestBody OrderItem item) {
+        return orderPricing.price(item)
+                .flatMap(pricedItem -> orderRepository.addItem(id, pricedItem))
+                .switchIfEmpty(Mono.error(ObjectNotFoundException::new))
+                .map(ReactiveOrderRestController::withEntityTag);
+    }
+
+    @DeleteMapping(path = "/{id}/items/{item}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Order>> removeOrderItems(@PathVariable String id, @PathVariable String item) {
+        return (ITEM_INDEX_PATTERN.matcher(item).matches()
+                ? orderRepository.removeItem(id, Integer.parseInt(item))
+                : orderRepository.removeItems(id, item)
+        ).switchIfEmpty(Mono.error(ObjectNotFoundException::new)).map(ReactiveOrderRestController::withEntityTag);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteOrder(@PathVariable String id) {
+        return orderRepository.deleteById(id);
+    }
+
+    @RequestMapping(path = {"/bulk", "/import", "/export"})
+    public Mono<Void> unsupportedEndpoint(ServerWebExchange exchange) {
+        return ReactiveRequests.unsupportedEndpoint(exchange.getRequest());
+    }
+
+    private static ResponseEntity<Order> withEntityTag(Order order) {
+        return ResponseEntity.ok().eTag(EntityTags.of(order)).body(order);
+    }
+}
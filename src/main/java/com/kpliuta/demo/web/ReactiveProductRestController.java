@@ -0,0 +1,95 @@
+package com.kpliuta.demo.web;
+
+import com.kpliuta.demo.cache.ProductCache;
+import com.kpliuta.demo.cache.ReactiveProductCache;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.ReactiveProductRepository;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking implementation of the {@link ProductRestController} contract, served with the {@code reactive} profile.
+ * List responses are written as products are read, so a slow client slows down reading the cursor. Only JSON bodies are
+ * negotiated, sparse fieldsets are rejected with 400 and the search, bulk, import and export endpoints with 404.
+ */
+@RequestMapping(path = "/api/product")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveProductRestController {
+
+    private final ReactiveProductRepository productRepository;
+    private final ReactiveProductCache reactiveProductCache;
+    private final ProductCache productCache;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<Product> findProducts(@Schema(hidden = true) PageableRequest request,
+                                      @RequestParam(name = Fieldset.PARAMETER, required = false) String fields) {
+        ReactiveRequests.rejectFieldset(fields);
+        return productRepository.findAllNotRemoved(PageRequest.of(request.pageNumber(), request.pageSize()));
+    }
+
+    @GetMapping(params = "after", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<Product>>> findProductsAfter(@Schema(hidden = true) CursorPageableRequest request,
+                                                                 @RequestParam(name = Fieldset.PARAMETER,
+                                                                         required = false) String fields) {
+        ReactiveRequests.rejectFieldset(fields);
+        return productRepository.findAllAfter(request.afterId(), request.pageSize())
+                .map(CursorPageableRequest::toResponse);
+    }
+
+    @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Product>> findProduct(@PathVariable String id,
+                                                     @RequestParam(name = Fieldset.PARAMETER, required = false)
+                                                     String fields) {
+        ReactiveRequests.rejectFieldset(fields);
+        return reactiveProductCache.findById(id)
+                .filter(product -> !product.isRemoved())
+                .switchIfEmpty(Mono.error(ObjectNotFoundException::new))
+                .map(ReactiveProductRestController::withEntityTag);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Product>> createProduct(@RequestBody Product product) {
+        return productRepository.save(product)
+                .doOnNext(createdProduct -> productCache.invalidate(createdProduct.getId()))
+                .map(ReactiveProductRestController::withEntityTag);
+    }
+
+    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Product>> updateProduct(@RequestBody Product product,
+                                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+                                                       String ifMatch) {
+        EntityTags.applyIfMatch(ifMatch, product);
+        return productRepository.update(product)
+                .switchIfEmpty(Mono.error(ObjectNotFoundException::new))
+                .doOnNext(updatedProduct -> productCache.invalidate(updatedProduct.getId()))
+                .map(ReactiveProductRestController::withEntityTag);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteProduct(@PathVariable String id) {
+        return productRepository.findAndSetRemovedById(id)
+                .then(Mono.fromRunnable(() -> productCache.invalidate(id)));
+    }
+
+    @RequestMapping(path = {"/search", "/bulk", "/import", "/export"})
+    public Mono<Void> unsupportedEndpoint(ServerWebExchange exchange) {
+        return ReactiveRequests.unsupportedEndpoint(exchange.getRequest());
+    }
+
+    private static ResponseEntity<Product> withEntityTag(Product product) {
+        return ResponseEntity.ok().eTag(EntityTags.of(product)).body(product);
+    }
+}
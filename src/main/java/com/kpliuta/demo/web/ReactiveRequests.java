@@ -0,0 +1,31 @@
+package com.kpliuta.demo.web;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rejects the parts of the servlet API contract the reactive stack does not implement, so that a request is never
+ * answered with a payload different from the one the servlet stack returns for the same URL.
+ */
+final class ReactiveRequests {
+
+    private ReactiveRequests() {
+    }
+
+    static void rejectFieldset(String fields) {
+        if (fields != null) {
+            throw new UnsupportedRequestException("Sparse fieldsets are not supported by the reactive stack");
+        }
+    }
+
+    static void rejectMerge(boolean merge) {
+        if (merge) {
+            throw new UnsupportedRequestException("Merge mode is not supported by the reactive stack");
+        }
+    }
+
+    static <T> Mono<T> unsupportedEndpoint(ServerHttpRequest request) {
+        return Mono.error(new UnsupportedEndpointException(
+                request.getPath().value() + " is not available with the reactive stack"));
+    }
+}
@@ -0,0 +1,8 @@
+package com.kpliuta.demo.web;
+
+public class UnsupportedEndpointException extends RuntimeException {
+
+    public UnsupportedEndpointException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.kpliuta.demo.web;
+
+public class UnsupportedRequestException extends RuntimeException {
+
+    public UnsupportedRequestException(String message) {
+        super(message);
+    }
+}
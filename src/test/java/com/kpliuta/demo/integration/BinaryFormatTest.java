@@ -0,0 +1,116 @@
+package com.kpliuta.demo.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static com.kpliuta.demo.web.MediaTypes.APPLICATION_SMILE;
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+class BinaryFormatTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void getOrdersReturnsSmile() {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", product, product));
+
+        ResponseEntity<List<Order>> response = restClient.get()
+                .uri(uriBase + OrderRestControllerTest.ORDER_RESOURCE_PATH + "?pageNumber={number}&pageSize={size}", 0, 10)
+                .accept(APPLICATION_SMILE)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+
+        assertEquals(APPLICATION_SMILE, response.getHeaders().getContentType());
+        List<Order> orders = requireNonNull(response.getBody());
+        assertEquals(1, orders.size());
+        assertEquals(order.getId(), orders.get(0).getId());
+        assertEquals(product.getName(), orders.get(0).getItems().get(0).getProduct().getName());
+    }
+
+    @Test
+    void createProductAcceptsCbor() {
+        Product product = buildVwBeetleProduct();
+
+        ResponseEntity<Product> response = restClient.post()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH)
+                .contentType(APPLICATION_CBOR)
+                .accept(APPLICATION_CBOR)
+                .body(product)
+                .retrieve()
+                .toEntity(Product.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(APPLICATION_CBOR, response.getHeaders().getContentType());
+        Product created = requireNonNull(response.getBody());
+        assertEquals(product.getName(), created.getName());
+        assertEquals(0, product.getPrice().compareTo(created.getPrice()));
+    }
+
+    @Test
+    void getProductsCompressesLargeResponses() throws IOException {
+        mongoTemplate.insertAll(IntStream.range(0, 50).mapToObj(i -> buildVwBeetleProduct()).toList());
+
+        ResponseEntity<byte[]> response = restClient.get()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "?pageNumber={number}&pageSize={size}", 0, 50)
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .retrieve()
+                .toEntity(byte[].class);
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(requireNonNull(response.getBody())))) {
+            JsonNode products = objectMapper.readTree(body);
+            assertEquals(50, products.size());
+        }
+    }
+
+    @Test
+    void getOrderCompressesLargeTaggedResponses() throws IOException {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1",
+                IntStream.range(0, 30).mapToObj(i -> product).toArray(Product[]::new)));
+
+        ResponseEntity<byte[]> response = restClient.get()
+                .uri(uriBase + OrderRestControllerTest.ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .retrieve()
+                .toEntity(byte[].class);
+
+        assertNotNull(response.getHeaders().getETag());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(response.getHeaders().getVary().contains(HttpHeaders.ACCEPT));
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(requireNonNull(response.getBody())))) {
+            assertEquals(30, objectMapper.readTree(body).get("items").size());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.kpliuta.demo.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.BulkItemResult;
+import com.kpliuta.demo.web.ImportReport;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.kpliuta.demo.DummyData.*;
+import static com.kpliuta.demo.repository.BulkItemResult.Status.*;
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+/**
+ * Bulk and import endpoints, with small limits so that requests are split into several batches.
+ */
+@TestPropertySource(properties = {"demo.bulk.max-items=3", "demo.bulk.batch-size=2", "demo.bulk.max-line-length=1000"})
+class BulkWriteTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    static final String PRODUCT_BULK_PATH = ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/bulk";
+    static final String ORDER_BULK_PATH = OrderRestControllerTest.ORDER_RESOURCE_PATH + "/bulk";
+
+    @Test
+    void postBulkCreatesAndUpdatesProducts() {
+        // create products, one of them without a price
+        Product invalidProduct = buildVwBeetleProduct();
+        invalidProduct.setPrice(null);
+        List<BulkItemResult> createResults = postBulk(PRODUCT_BULK_PATH,
+                List.of(buildPorsche911Product(), buildMercedesBenzVitoProduct(), invalidProduct));
+        assertEquals(List.of(CREATED, CREATED, INVALID), createResults.stream().map(BulkItemResult::status).toList());
+        assertEquals(0, createResults.get(0).version());
+        assertTrue(createResults.get(2).error().contains("price"));
+
+        // update the first product, the second one with a stale version and an unknown one
+        Product porsche911 = buildPorsche911Product();
+        porsche911.setId(createResults.get(0).id());
+        porsche911.setVersion(0);
+        porsche911.setPrice(BigDecimal.valueOf(999));
+        Product mercedesBenzVito = buildMercedesBenzVitoProduct();
+        mercedesBenzVito.setId(createResults.get(1).id());
+        mercedesBenzVito.setVersion(1);
+        Product unknownProduct = buildVwBeetleProduct();
+        unknownProduct.setId(new ObjectId().toHexString());
+        unknownProduct.setVersion(0);
+        List<BulkItemResult> updateResults = postBulk(PRODUCT_BULK_PATH,
+                List.of(porsche911, mercedesBenzVito, unknownProduct));
+        assertEquals(List.of(UPDATED, VERSION_CONFLICT, NOT_FOUND),
+                updateResults.stream().map(BulkItemResult::status).toList());
+        assertEquals(1, updateResults.get(0).version());
+
+        Product updatedProduct = requireNonNull(mongoTemplate.findById(porsche911.getId(), Product.class));
+        assertEquals(1, updatedProduct.getVersion());
+        assertEquals(0, BigDecimal.valueOf(999).compareTo(updatedProduct.getPrice()));
+    }
+
+    @Test
+    void postBulkReportsInsertsOfExistingProducts() {
+        Product stored = mongoTemplate.insert(buildPorsche911Product());
+
+        // insert a product with the ID of the stored one
+        Product duplicate = buildVwBeetleProduct();
+        duplicate.setId(stored.getId());
+        List<BulkItemResult> results = postBulk(PRODUCT_BULK_PATH, List.of(duplicate, buildMercedesBenzVitoProduct()));
+        assertEquals(List.of(ALREADY_EXISTS, CREATED), results.stream().map(BulkItemResult::status).toList());
+        assertEquals(stored.getId(), results.get(0).id());
+
+        assertEquals(stored.getName(), requireNonNull(mongoTemplate.findById(stored.getId(), Product.class)).getName());
+    }
+
+    @Test
+    void postBulkCreatesOrders() {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+
+        List<BulkItemResult> results = postBulk(ORDER_BULK_PATH,
+                List.of(DummyData.buildOrder("1", product), DummyData.buildOrder(null, product)));
+        assertEquals(List.of(CREATED, INVALID), results.stream().map(BulkItemResult::status).toList());
+
+        Order order = requireNonNull(mongoTemplate.findById(results.get(0).id(), Order.class));
+        assertEquals("1", order.getCustomerId());
+        assertEquals(product.getId(), order.getItems().get(0).getProduct().getId());
+    }
+
+    @Test
+    void postBulkReturns400IfTooManyItems() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.post()
+                .uri(uriBase + PRODUCT_BULK_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(List.of(buildPorsche911Product(), buildMercedesBenzVitoProduct(), buildVwBeetleProduct(),
+                        buildPorsche911Product()))
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(String.class));
+    }
+
+    @Test
+    void postImportWritesProductsInBatchesAndReportsRejectedLines() throws Exception {
+        Product invalidProduct = buildVwBeetleProduct();
+        invalidProduct.setPrice(null);
+        String body = String.join("\n",
+                objectMapper.writeValueAsString(buildPorsche911Product()),
+                "{ malformed",
+                objectMapper.writeValueAsString(invalidProduct),
+                "",
+                objectMapper.writeValueAsString(buildMercedesBenzVitoProduct()),
+                objectMapper.writeValueAsString(buildVwBeetleProduct()));
+
+        ResponseEntity<ImportReport> response = restClient.post()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/import")
+                .contentType(APPLICATION_NDJSON)
+                .accept(APPLICATION_JSON)
+                .body(body)
+                .retrieve()
+                .toEntity(ImportReport.class);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+
+        ImportReport report = requireNonNull(response.getBody());
+        assertEquals(6, report.lines());
+        assertEquals(3, report.created());
+        assertEquals(0, report.updated());
+        assertEquals(2, report.rejected());
+        assertEquals(List.of(2L, 3L), report.rejectedLines().stream().map(ImportReport.RejectedLine::line).toList());
+        assertEquals(List.of("MALFORMED", INVALID.name()),
+                report.rejectedLines().stream().map(ImportReport.RejectedLine::status).toList());
+        assertEquals(3, mongoTemplate.count(new Query(), Product.class));
+    }
+
+    @Test
+    void postImportWritesOrders() throws Exception {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        String body = objectMapper.writeValueAsString(DummyData.buildOrder("1", product)) + "\n"
+                + objectMapper.writeValueAsString(DummyData.buildOrder("2", product)) + "\n";
+
+        ImportReport report = restClient.post()
+                .uri(uriBase + OrderRestControllerTest.ORDER_RESOURCE_PATH + "/import")
+                .contentType(APPLICATION_NDJSON)
+                .accept(APPLICATION_JSON)
+                .body(body)
+                .retrieve()
+                .body(ImportReport.class);
+        assertEquals(2, requireNonNull(report).created());
+        assertEquals(0, report.rejected());
+        assertEquals(2, mongoTemplate.count(new Query(), Order.class));
+    }
+
+    @Test
+    void postImportReturns400IfLineTooLong() throws Exception {
+        Product longProduct = buildVwBeetleProduct();
+        longProduct.setDescription("x".repeat(1000));
+        String body = objectMapper.writeValueAsString(buildPorsche911Product()) + "\n"
+                + objectMapper.writeValueAsString(buildMercedesBenzVitoProduct()) + "\n"
+                + objectMapper.writeValueAsString(longProduct) + "\n"
+                + objectMapper.writeValueAsString(buildPorsche911Product()) + "\n";
+
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.post()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/import")
+                .contentType(APPLICATION_NDJSON)
+                .accept(APPLICATION_JSON)
+                .body(body)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(String.class));
+        // the batch before the long line has been written
+        assertEquals(2, mongoTemplate.count(new Query(), Product.class));
+    }
+
+    private List<BulkItemResult> postBulk(String path, List<?> entities) {
+        ResponseEntity<List<BulkItemResult>> response = restClient.post()
+                .uri(uriBase + path)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(entities)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return requireNonNull(response.getBody());
+    }
+}
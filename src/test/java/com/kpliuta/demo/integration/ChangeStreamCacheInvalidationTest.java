@@ -0,0 +1,135 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.cache.ChangeStreamCacheInvalidator;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@TestPropertySource(properties = "demo.cache.change-streams.enabled=true")
+class ChangeStreamCacheInvalidationTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String PRODUCT_RESOURCE_PATH = "/api/product";
+
+    static final String RESUME_TOKEN_COLLECTION = "changeStreamResumeToken";
+
+    static final String ORDER_RESOURCE_PATH = "/api/order";
+
+    @Autowired
+    ChangeStreamCacheInvalidator changeStreamCacheInvalidator;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void getReturnsProductUpdatedByAnotherNode() throws InterruptedException {
+        Product product = mongoTemplate.insert(DummyData.buildVwBeetleProduct());
+
+        // get product, caching it
+        assertEquals(product.getPrice(), getProduct(product.getId()).getPrice());
+
+        // update product bypassing this node
+        BigDecimal newPrice = BigDecimal.valueOf(999);
+        mongoTemplate.updateFirst(query(where("id").is(product.getId())),
+                new Update().set("price", newPrice).inc("version", 1), Product.class);
+
+        // get eventually returns updated product
+        awaitPrice(product.getId(), newPrice);
+    }
+
+    @Test
+    void restartedNodeResumesFromPersistedToken() throws InterruptedException {
+        Product product = mongoTemplate.insert(DummyData.buildVwBeetleProduct());
+        assertEquals(product.getPrice(), getProduct(product.getId()).getPrice());
+
+        // handle a change, caching the updated product afterward
+        BigDecimal firstPrice = BigDecimal.valueOf(999);
+        mongoTemplate.updateFirst(query(where("id").is(product.getId())),
+                new Update().set("price", firstPrice).inc("version", 1), Product.class);
+        awaitPrice(product.getId(), firstPrice);
+
+        // stopping persists the resume token of the last handled change
+        changeStreamCacheInvalidator.stop();
+        assertEquals(1, mongoTemplate.getCollection(RESUME_TOKEN_COLLECTION).countDocuments());
+        BigDecimal secondPrice = BigDecimal.valueOf(1999);
+        try {
+            // update product while the node does not follow the change stream
+            mongoTemplate.updateFirst(query(where("id").is(product.getId())),
+                    new Update().set("price", secondPrice).inc("version", 1), Product.class);
+        } finally {
+            changeStreamCacheInvalidator.start();
+        }
+
+        // the change made meanwhile is handled once resumed
+        awaitPrice(product.getId(), secondPrice);
+    }
+
+    @Test
+    void orderDeletedByAnotherNodeIsForgotten() throws InterruptedException {
+        Product product = mongoTemplate.insert(DummyData.buildVwBeetleProduct());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", product));
+
+        // get order, remembering its version
+        ResponseEntity<Order> response = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        assertEquals(1, orderSnapshotsSize());
+
+        // delete order bypassing this node
+        mongoTemplate.remove(order);
+
+        // its version is eventually forgotten
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+        while (orderSnapshotsSize() > 0) {
+            assertTrue(Instant.now().isBefore(deadline), "Order snapshot has not been invalidated");
+            Thread.sleep(100);
+        }
+    }
+
+    private double orderSnapshotsSize() {
+        return meterRegistry.get("cache.size").tag("cache", "orderSnapshot").gauge().value();
+    }
+
+    private void awaitPrice(String id, BigDecimal price) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(10));
+        while (!price.equals(getProduct(id).getPrice())) {
+            assertTrue(Instant.now().isBefore(deadline), "Cached product has not been invalidated");
+            Thread.sleep(100);
+        }
+    }
+
+    private Product getProduct(String id) {
+        ResponseEntity<Product> response = restClient.get()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "/{id}", id)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Product.class);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return requireNonNull(response.getBody());
+    }
+}
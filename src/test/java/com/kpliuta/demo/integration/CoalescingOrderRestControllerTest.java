@@ -0,0 +1,10 @@
+package com.kpliuta.demo.integration;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the order API tests with item operations coalesced.
+ */
+@TestPropertySource(properties = "demo.order.coalescing.enabled=true")
+class CoalescingOrderRestControllerTest extends OrderRestControllerTest {
+}
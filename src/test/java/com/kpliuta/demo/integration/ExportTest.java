@@ -0,0 +1,132 @@
+package com.kpliuta.demo.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kpliuta.demo.DummyData.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+class ExportTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String ORDER_EXPORT_PATH = OrderRestControllerTest.ORDER_RESOURCE_PATH + "/export";
+    static final String PRODUCT_EXPORT_PATH = ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/export";
+
+    /**
+     * Maximum growth of the used heap while exporting, far below the size of the exported data.
+     */
+    static final long MAX_HEAP_GROWTH = 64 * 1024 * 1024;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void exportStreamsOrdersOfCustomer() throws Exception {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        Order firstOrder = mongoTemplate.insert(DummyData.buildOrder("1", product));
+        mongoTemplate.insert(DummyData.buildOrder("2", product));
+        Order secondOrder = mongoTemplate.insert(DummyData.buildOrder("1", product, product));
+
+        List<String> lines = export(ORDER_EXPORT_PATH + "?customerId=1");
+        assertEquals(2, lines.size());
+        Order exportedFirstOrder = objectMapper.readValue(lines.get(0), Order.class);
+        Order exportedSecondOrder = objectMapper.readValue(lines.get(1), Order.class);
+        assertEquals(firstOrder.getId(), exportedFirstOrder.getId());
+        assertEquals(secondOrder.getId(), exportedSecondOrder.getId());
+        assertEquals(2, exportedSecondOrder.getItems().size());
+        assertEquals(product.getName(), exportedSecondOrder.getItems().get(1).getProduct().getName());
+    }
+
+    @Test
+    void exportResumesAfterGivenProduct() throws Exception {
+        Product firstProduct = mongoTemplate.insert(buildVwBeetleProduct());
+        Product secondProduct = mongoTemplate.insert(buildPorsche911Product());
+        Product thirdProduct = mongoTemplate.insert(buildMercedesBenzVitoProduct());
+
+        List<String> lines = export(PRODUCT_EXPORT_PATH + "?after=" + firstProduct.getId()
+                + "&before=" + thirdProduct.getId());
+        assertEquals(1, lines.size());
+        assertEquals(secondProduct.getId(), objectMapper.readValue(lines.get(0), Product.class).getId());
+    }
+
+    /**
+     * Exports a large collection, checking that the used heap does not grow with the number of exported orders. Takes
+     * a while, so it runs only if the number of orders is given, e.g. {@code -Dexport.documents=2000000}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "export.documents", matches = "\\d+")
+    void exportKeepsHeapUsageFlat() throws Exception {
+        int documents = Integer.parseInt(System.getProperty("export.documents"));
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        insertOrders(documents, new ObjectId(product.getId()));
+
+        long initialHeapUsage = usedHeap();
+        long maxHeapUsage = restClient.get()
+                .uri(uriBase + ORDER_EXPORT_PATH)
+                .accept(APPLICATION_NDJSON)
+                .exchange((request, response) -> {
+                    long maxUsage = initialHeapUsage;
+                    int lines = 0;
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        while (reader.readLine() != null) {
+                            if (++lines % 100_000 == 0) {
+                                maxUsage = Math.max(maxUsage, usedHeap());
+                            }
+                        }
+                    }
+                    assertEquals(documents, lines);
+                    return maxUsage;
+                });
+        assertTrue(maxHeapUsage - initialHeapUsage < MAX_HEAP_GROWTH,
+                () -> "Heap usage grew by " + (maxHeapUsage - initialHeapUsage) + " bytes");
+    }
+
+    private List<String> export(String path) {
+        String body = restClient.get()
+                .uri(uriBase + path)
+                .accept(APPLICATION_NDJSON)
+                .retrieve()
+                .body(String.class);
+        return body == null || body.isEmpty() ? List.of() : List.of(body.split("\n"));
+    }
+
+    private void insertOrders(int count, ObjectId productId) {
+        List<Document> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new Document("customerId", String.valueOf(i % 1000))
+                    .append("version", 0)
+                    .append("items", List.of(new Document("quantity", 1).append("product", productId))));
+            if (batch.size() == 10_000 || i == count - 1) {
+                mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class)).insertMany(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,79 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.IndexInitializer;
+import com.kpliuta.demo.repository.IndexProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexInitializerTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    @Autowired
+    IndexInitializer indexInitializer;
+
+    @Test
+    void createsDeclaredIndexes() {
+        indexInitializer.run(new DefaultApplicationArguments());
+
+        List<IndexInfo> productIndexes = mongoTemplate.indexOps(Product.class).getIndexInfo();
+        IndexInfo removedIdIndex = productIndexes.stream()
+                .filter(index -> index.getName().equals("removed_id"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(removedIdIndex.isIndexForFields(List.of("removed", "_id")));
+        assertNotNull(removedIdIndex.getPartialFilterExpression());
+        assertTrue(productIndexes.stream().anyMatch(index -> index.isIndexForFields(List.of("brand", "price", "_id"))));
+
+        List<IndexInfo> orderIndexes = mongoTemplate.indexOps(Order.class).getIndexInfo();
+        assertTrue(orderIndexes.stream().anyMatch(index -> index.isIndexForFields(List.of("customerId", "_id"))));
+        assertTrue(orderIndexes.stream().anyMatch(index -> index.isIndexForFields(List.of("items.product"))));
+    }
+
+    @Test
+    void recreatesMismatchingIndexes() {
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.indexOps(Product.class).ensureIndex(new Index("removed", Sort.Direction.ASC).named("removed_id"));
+
+        indexInitializer.run(new DefaultApplicationArguments());
+
+        IndexInfo removedIdIndex = mongoTemplate.indexOps(Product.class).getIndexInfo().stream()
+                .filter(index -> index.getName().equals("removed_id"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(removedIdIndex.isIndexForFields(List.of("removed", "_id")));
+        assertNotNull(removedIdIndex.getPartialFilterExpression());
+    }
+
+    @Test
+    void matchingIndexesPassWithoutCreation() {
+        indexInitializer.run(new DefaultApplicationArguments());
+
+        assertDoesNotThrow(() -> new IndexInitializer(mongoTemplate, new IndexProperties(false))
+                .run(new DefaultApplicationArguments()));
+    }
+
+    @Test
+    void mismatchingIndexesFailWithoutCreation() {
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.indexOps(Product.class).ensureIndex(new Index("removed", Sort.Direction.ASC).named("removed_id"));
+
+        assertThrows(IllegalStateException.class, () -> new IndexInitializer(mongoTemplate, new IndexProperties(false))
+                .run(new DefaultApplicationArguments()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+/**
+ * Runs the order statistics tests against the materialized statistics, refreshed explicitly rather than on schedule.
+ */
+@TestPropertySource(properties = {
+        "demo.order.stats.materialized=true",
+        "demo.order.stats.refresh-interval=1h"
+})
+class MaterializedOrderStatsTest extends OrderStatsTest {
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Override
+    void refreshStats() {
+        orderRepository.refreshStats();
+    }
+
+    @AfterEach
+    void dropStats() {
+        List.of("productSalesStats", "brandRevenueStats", "customerSpendStats").forEach(mongoTemplate::dropCollection);
+    }
+}
@@ -0,0 +1,72 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.domain.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.MediaType;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@AutoConfigureObservability(tracing = false)
+class MetricsTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String PROMETHEUS_PATH = "/actuator/prometheus";
+
+    @Test
+    void prometheusExposesEndpointRepositoryAndDriverMetrics() {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        restClient.get()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/{id}", product.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity();
+        restClient.get()
+                .uri(uriBase + OrderRestControllerTest.ORDER_RESOURCE_PATH + "?pageNumber=0&pageSize=10")
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity();
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/{id}", "???")
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 404, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toBodilessEntity());
+
+        String metrics = scrape();
+
+        assertContains(metrics, "http_server_requests_seconds_bucket{");
+        assertContains(metrics, "uri=\"/api/product/{id}\"");
+        assertContains(metrics, "quantile=\"0.99\"");
+        assertContains(metrics, "spring_data_repository_invocations_seconds_bucket{");
+        assertContains(metrics, "repository=\"OrderRepository\"");
+        assertContains(metrics, "mongodb_driver_commands_seconds_bucket{");
+        assertContains(metrics, "mongodb_driver_pool_size{");
+        assertContains(metrics, "cache_gets_total{cache=\"product\"");
+        assertContains(metrics, "demo_api_not_found_total 1.0");
+        assertContains(metrics, "demo_api_optimistic_locking_failures_total 0.0");
+    }
+
+    private String scrape() {
+        return restClient.get()
+                .uri(uriBase + PROMETHEUS_PATH)
+                .accept(MediaType.TEXT_PLAIN)
+                .retrieve()
+                .body(String.class);
+    }
+
+    private static void assertContains(String metrics, String expected) {
+        assertTrue(metrics.contains(expected), () -> "Missing " + expected);
+    }
+}
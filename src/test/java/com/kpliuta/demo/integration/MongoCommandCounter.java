@@ -0,0 +1,40 @@
+package com.kpliuta.demo.integration;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts commands issued by the application's Mongo client.
+ */
+class MongoCommandCounter implements CommandListener {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        count.incrementAndGet();
+    }
+
+    int reset() {
+        return count.getAndSet(0);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Config {
+
+        @Bean
+        MongoCommandCounter mongoCommandCounter() {
+            return new MongoCommandCounter();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer mongoCommandCounterCustomizer(MongoCommandCounter counter) {
+            return builder -> builder.addCommandListener(counter);
+        }
+    }
+}
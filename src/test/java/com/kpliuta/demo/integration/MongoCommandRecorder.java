@@ -0,0 +1,57 @@
+package com.kpliuta.demo.integration;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records queries issued by the application's Mongo client, so that they can be explained.
+ */
+class MongoCommandRecorder implements CommandListener {
+
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "aggregate");
+
+    private final List<BsonDocument> commands = new ArrayList<>();
+
+    @Override
+    public synchronized void commandStarted(CommandStartedEvent event) {
+        if (QUERY_COMMANDS.contains(event.getCommandName())) {
+            commands.add(event.getCommand().clone());
+        }
+    }
+
+    /**
+     * @param collection collection queried
+     * @return queries of given collection issued since the last reset, without generic fields such as the database
+     */
+    synchronized List<BsonDocument> reset(String collection) {
+        List<BsonDocument> queries = commands.stream()
+                .filter(command -> command.get(command.getFirstKey()).equals(new BsonString(collection)))
+                .toList();
+        queries.forEach(query -> query.keySet().removeIf(key -> key.startsWith("$") || key.equals("lsid")));
+        commands.clear();
+        return queries;
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Config {
+
+        @Bean
+        MongoCommandRecorder mongoCommandRecorder() {
+            return new MongoCommandRecorder();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer mongoCommandRecorderCustomizer(MongoCommandRecorder recorder) {
+            return builder -> builder.addCommandListener(recorder);
+        }
+    }
+}
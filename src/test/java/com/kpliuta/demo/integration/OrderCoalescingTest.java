@@ -0,0 +1,132 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.OrderCoalescingProperties;
+import com.kpliuta.demo.repository.OrderItemCoalescer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static com.kpliuta.demo.DummyData.buildPorsche911Product;
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "demo.order.coalescing.enabled=true",
+        "demo.order.coalescing.window=200ms"
+})
+class OrderCoalescingTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    @Autowired
+    OrderItemCoalescer orderItemCoalescer;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    OrderCoalescingProperties properties;
+
+    @Test
+    void concurrentItemAdditionsAreWrittenTogether() throws Exception {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Product porsche911 = mongoTemplate.insert(buildPorsche911Product());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", vwBeetle));
+
+        int additions = 10;
+        List<Optional<Order>> results = runConcurrently(IntStream.range(0, additions)
+                .<Callable<Optional<Order>>>mapToObj(i -> () -> orderItemCoalescer.addItem(order.getId(),
+                        OrderItem.builder().product(porsche911).quantity(1).build()))
+                .toList());
+
+        results.forEach(result -> assertTrue(result.isPresent()));
+        Order stored = mongoTemplate.findById(order.getId(), Order.class);
+        assertEquals(1 + additions, stored.getItems().size());
+        // every write increments the version once
+        assertTrue(stored.getVersion() < additions);
+        assertTrue(results.stream().map(result -> result.get().getVersion()).distinct().count() < additions);
+    }
+
+    @Test
+    void coalescedOperationsHaveOwnResults() throws Exception {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Product porsche911 = mongoTemplate.insert(buildPorsche911Product());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", vwBeetle));
+        DistributionSummary batchSize = meterRegistry.get("demo.order.coalescing.batch.size").summary();
+        long writes = batchSize.count();
+        double operations = batchSize.totalAmount();
+
+        List<Optional<Order>> results = runConcurrently(List.of(
+                () -> orderItemCoalescer.addItem(order.getId(),
+                        OrderItem.builder().product(porsche911).quantity(1).build()),
+                () -> orderItemCoalescer.removeItem(order.getId(), 5)));
+
+        assertEquals(2, results.get(0).orElseThrow().getItems().size());
+        assertTrue(results.get(1).isEmpty());
+        assertEquals(1, mongoTemplate.findById(order.getId(), Order.class).getVersion());
+        // both operations are written by a single update
+        assertEquals(writes + 1, batchSize.count());
+        assertEquals(operations + 2, batchSize.totalAmount());
+    }
+
+    @Test
+    void fullBatchIsWrittenWithSingleUpdate() throws Exception {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Product porsche911 = mongoTemplate.insert(buildPorsche911Product());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", vwBeetle));
+        DistributionSummary batchSize = meterRegistry.get("demo.order.coalescing.batch.size").summary();
+        long writes = batchSize.count();
+
+        // half of the operations remove the first item, which does not apply once the order has no items
+        int operations = properties.maxBatchSize();
+        List<Optional<Order>> results = runConcurrently(IntStream.range(0, operations)
+                .<Callable<Optional<Order>>>mapToObj(i -> i % 2 == 0
+                        ? () -> orderItemCoalescer.addItem(order.getId(),
+                        OrderItem.builder().product(porsche911).quantity(1).build())
+                        : () -> orderItemCoalescer.removeItem(order.getId(), 0))
+                .toList());
+
+        assertEquals(writes + 1, batchSize.count());
+        Order stored = mongoTemplate.findById(order.getId(), Order.class);
+        assertEquals(1, stored.getVersion());
+        assertEquals(1 + results.stream().filter(Optional::isEmpty).count(), stored.getItems().size());
+    }
+
+    private static List<Optional<Order>> runConcurrently(List<Callable<Optional<Order>>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Optional<Order>>> futures = tasks.stream()
+                    .map(task -> executor.submit(() -> {
+                        start.await();
+                        return task.call();
+                    }))
+                    .toList();
+            start.countDown();
+            List<Optional<Order>> results = new ArrayList<>();
+            for (Future<Optional<Order>> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.cache.ProductCache;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@Import(MongoCommandCounter.Config.class)
+class OrderCommandCountTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String ORDER_RESOURCE_PATH = "/api/order";
+
+    @Autowired
+    MongoCommandCounter mongoCommandCounter;
+
+    @Autowired
+    ProductCache productCache;
+
+    @Test
+    void getOrdersIssuesConstantNumberOfCommands() {
+        Product[] products = IntStream.range(0, 10)
+                .mapToObj(i -> mongoTemplate.insert(DummyData.buildVwBeetleProduct()))
+                .toArray(Product[]::new);
+        mongoTemplate.insert(DummyData.buildOrder("1", products[0]));
+
+        mongoCommandCounter.reset();
+        List<Order> singleItemOrders = getOrders();
+        int singleItemCommandCount = mongoCommandCounter.reset();
+
+        IntStream.range(0, 10).forEach(i -> mongoTemplate.insert(DummyData.buildOrder("1", products)));
+
+        mongoCommandCounter.reset();
+        List<Order> multiItemOrders = getOrders();
+        int multiItemCommandCount = mongoCommandCounter.reset();
+
+        assertEquals(1, singleItemOrders.size());
+        assertEquals(11, multiItemOrders.size());
+        assertTrue(multiItemOrders.stream()
+                .flatMap(order -> order.getItems().stream())
+                .allMatch(item -> item.getProduct() != null && item.getProduct().getPrice() != null));
+        assertEquals(2, singleItemCommandCount);
+        assertEquals(singleItemCommandCount, multiItemCommandCount);
+    }
+
+    @Test
+    void getOrderByIdIssuesConstantNumberOfCommands() {
+        Product[] products = IntStream.range(0, 10)
+                .mapToObj(i -> mongoTemplate.insert(DummyData.buildVwBeetleProduct()))
+                .toArray(Product[]::new);
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", products));
+
+        mongoCommandCounter.reset();
+        ResponseEntity<Order> response = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Order.class);
+        int commandCount = mongoCommandCounter.reset();
+
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        assertEquals(10, requireNonNull(response.getBody()).getItems().size());
+        assertEquals(2, commandCount);
+    }
+
+    @Test
+    void getOrdersWithoutProductsIssuesSingleCommand() {
+        Product product = mongoTemplate.insert(DummyData.buildVwBeetleProduct());
+        IntStream.range(0, 10).forEach(i -> mongoTemplate.insert(DummyData.buildOrder("1", product, product)));
+
+        mongoCommandCounter.reset();
+        ResponseEntity<List<Order>> response = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?pageNumber={number}&pageSize={size}&fields={fields}",
+                        0, 100, "customerId,items.quantity")
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+        int commandCount = mongoCommandCounter.reset();
+
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        assertEquals(10, requireNonNull(response.getBody()).size());
+        assertTrue(response.getBody().stream()
+                .allMatch(order -> order.getItems().size() == 2 && order.getItems().get(0).getProduct() == null));
+        assertEquals(1, commandCount);
+    }
+
+    @Test
+    void getUnmodifiedOrderIssuesSingleCommand() {
+        Product product = mongoTemplate.insert(DummyData.buildVwBeetleProduct());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", product));
+
+        // get order with its entity tag, caching its product
+        String eTag = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity()
+                .getHeaders()
+                .getETag();
+
+        mongoCommandCounter.reset();
+        ResponseEntity<Void> response = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .retrieve()
+                .toBodilessEntity();
+        int commandCount = mongoCommandCounter.reset();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(1, commandCount);
+    }
+
+    @Test
+    void putOrderIssuesSingleCommand() {
+        Product product = mongoTemplate.insert(DummyData.buildVwBeetleProduct());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", product));
+        order.setCustomerId("2");
+        // stored items keep their unit prices within the update, other items are priced from cached products
+        productCache.findById(product.getId());
+
+        mongoCommandCounter.reset();
+        ResponseEntity<Order> response = restClient.put()
+                .uri(uriBase + ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(order)
+                .retrieve()
+                .toEntity(Order.class);
+        int commandCount = mongoCommandCounter.reset();
+
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        assertEquals(1, requireNonNull(response.getBody()).getVersion());
+        assertEquals(1, commandCount);
+        assertEquals("2", mongoTemplate.findById(order.getId(), Order.class).getCustomerId());
+    }
+
+    private List<Order> getOrders() {
+        ResponseEntity<List<Order>> response = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?pageNumber={number}&pageSize={size}", 0, 100)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return requireNonNull(response.getBody());
+    }
+}
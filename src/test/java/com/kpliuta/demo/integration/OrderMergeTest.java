@@ -0,0 +1,124 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.ResponseEntity;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import static com.kpliuta.demo.DummyData.*;
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+class OrderMergeTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String ORDER_RESOURCE_PATH = "/api/order";
+
+    @Test
+    void putMergesItemsIntoModifiedOrder() {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Product porsche911 = mongoTemplate.insert(buildPorsche911Product());
+        Order created = createOrder(DummyData.buildOrder("1", vwBeetle));
+
+        // another client adds an item
+        Order other = getOrder(created.getId());
+        other.getItems().add(OrderItem.builder().product(porsche911).quantity(1).build());
+        assertEquals(1, put(other, false).getVersion());
+
+        // the stale client changes the quantity of the first item
+        created.getItems().get(0).setQuantity(3);
+        Order merged = put(created, true);
+
+        assertEquals(2, merged.getVersion());
+        assertEquals(2, merged.getItems().size());
+        assertEquals(vwBeetle.getId(), merged.getItems().get(0).getProduct().getId());
+        assertEquals(3, merged.getItems().get(0).getQuantity());
+        assertEquals(porsche911.getId(), merged.getItems().get(1).getProduct().getId());
+        assertEquals(2, mongoTemplate.findById(created.getId(), Order.class).getItems().size());
+    }
+
+    @Test
+    void putReturns412IfMergedChangesConflict() {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Order created = createOrder(DummyData.buildOrder("1", vwBeetle));
+
+        Order other = getOrder(created.getId());
+        other.getItems().get(0).setQuantity(2);
+        put(other, false);
+
+        created.getItems().get(0).setQuantity(3);
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.put()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?merge=true")
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(created)
+                .retrieve()
+                .onStatus(status -> status.value() == 412, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(Order.class));
+    }
+
+    @Test
+    void putReturns412IfBaseVersionIsUnknown() {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        // neither version is returned by the API, so version 0 is not remembered
+        Order inserted = mongoTemplate.insert(DummyData.buildOrder("1", vwBeetle));
+        Order other = mongoTemplate.findById(inserted.getId(), Order.class);
+        other.setCustomerId("2");
+        mongoTemplate.save(other);
+
+        inserted.getItems().get(0).setQuantity(3);
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.put()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?merge=true")
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(inserted)
+                .retrieve()
+                .onStatus(status -> status.value() == 412, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(Order.class));
+    }
+
+    private Order createOrder(Order order) {
+        ResponseEntity<Order> response = restClient.post()
+                .uri(uriBase + ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(order)
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return requireNonNull(response.getBody());
+    }
+
+    private Order getOrder(String id) {
+        return requireNonNull(restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", id)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .body(Order.class));
+    }
+
+    private Order put(Order order, boolean merge) {
+        ResponseEntity<Order> response = restClient.put()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?merge={merge}", merge)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(order)
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return requireNonNull(response.getBody());
+    }
+}
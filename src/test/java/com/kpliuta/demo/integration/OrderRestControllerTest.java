@@ -4,13 +4,20 @@ import com.kpliuta.demo.domain.Order;
 import com.kpliuta.demo.domain.OrderItem;
 import com.kpliuta.demo.domain.Product;
 import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.web.CursorPageableRequest;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
@@ -71,6 +78,58 @@ class OrderRestControllerTest extends BaseIntegrationTest {
         assertTrue(requireNonNull(getResponse.getBody()).isEmpty());
     }
 
+    @Test
+    void getWithCursorReturnsAllPages() {
+        // create orders
+        Product product = createVwBeetleProduct();
+        for (int i = 0; i < 3; i++) {
+            ResponseEntity<Order> createResponse = restClient.post()
+                    .uri(uriBase + ORDER_RESOURCE_PATH)
+                    .contentType(APPLICATION_JSON)
+                    .accept(APPLICATION_JSON)
+                    .body(DummyData.buildOrder(String.valueOf(i), product))
+                    .retrieve()
+                    .toEntity(Order.class);
+            assertTrue(createResponse.getStatusCode().is2xxSuccessful());
+        }
+
+        // get first page
+        ResponseEntity<List<Order>> firstResponse = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?after=&pageSize={size}", 2)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+        assertTrue(firstResponse.getStatusCode().is2xxSuccessful());
+        assertEquals(2, requireNonNull(firstResponse.getBody()).size());
+        String next = firstResponse.getHeaders().getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER);
+        assertNotNull(next);
+
+        // get last page
+        ResponseEntity<List<Order>> lastResponse = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?after={after}&pageSize={size}", next, 2)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+        assertTrue(lastResponse.getStatusCode().is2xxSuccessful());
+        assertEquals(1, requireNonNull(lastResponse.getBody()).size());
+        assertNotNull(lastResponse.getBody().get(0).getItems().get(0).getProduct());
+        assertNull(lastResponse.getHeaders().getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getWithCursorReturns400IfPageSizeTooLarge() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?after=&pageSize={size}", Integer.MAX_VALUE)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(Order.class));
+    }
+
     @Test
     void getReturns400IfPagingParametersNotPassed() {
         assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
@@ -223,6 +282,340 @@ class OrderRestControllerTest extends BaseIntegrationTest {
                 .toEntity(Order.class));
     }
 
+    @Test
+    void postAddsOrderItem() {
+        // create order
+        Order order = createOrder(createVwBeetleProduct());
+
+        // add item
+        ResponseEntity<Order> addResponse = restClient.post()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}/items", order.getId())
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(OrderItem.builder().product(createMercedesBenzVitoProduct()).quantity(2).build())
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(addResponse.getStatusCode().is2xxSuccessful());
+
+        Order updatedOrder = requireNonNull(addResponse.getBody());
+        assertEquals(2, updatedOrder.getItems().size());
+        assertEquals("Vito", updatedOrder.getItems().get(1).getProduct().getName());
+        assertEquals(2, updatedOrder.getItems().get(1).getQuantity());
+        assertEquals(1, updatedOrder.getVersion());
+        assertPriceEquals(new BigDecimal("702999.97"), updatedOrder.getTotal());
+    }
+
+    @Test
+    void deleteRemovesOrderItemByIndex() {
+        // create order
+        Order order = createOrder(createVwBeetleProduct(), createMercedesBenzVitoProduct());
+
+        // remove first item
+        ResponseEntity<Order> removeResponse = restClient.delete()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}/items/{index}", order.getId(), 0)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(removeResponse.getStatusCode().is2xxSuccessful());
+
+        Order updatedOrder = requireNonNull(removeResponse.getBody());
+        assertEquals(1, updatedOrder.getItems().size());
+        assertEquals("Vito", updatedOrder.getItems().get(0).getProduct().getName());
+        assertEquals(1, updatedOrder.getVersion());
+        assertPriceEquals(new BigDecimal("300999.99"), updatedOrder.getTotal());
+    }
+
+    @Test
+    void postPricesOrderItems() {
+        Product vwBeetle = createVwBeetleProduct();
+        Product vito = createMercedesBenzVitoProduct();
+
+        Order order = createOrder(vwBeetle, vito);
+
+        assertPriceEquals(vwBeetle.getPrice(), order.getItems().get(0).getUnitPrice());
+        assertPriceEquals(vito.getPrice(), order.getItems().get(1).getUnitPrice());
+        assertPriceEquals(new BigDecimal("401999.98"), order.getTotal());
+        assertInstanceOf(Decimal128.class, mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .find(new Document("_id", new ObjectId(order.getId())))
+                .first()
+                .get("total"));
+    }
+
+    @Test
+    void getReturnsOrderPricesRegardlessOfProductPriceChanges() {
+        Product product = createVwBeetleProduct();
+        Order order = createOrder(product);
+        product.setPrice(BigDecimal.ONE);
+        mongoTemplate.save(product);
+
+        ResponseEntity<Order> getResponse = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Order.class);
+
+        Order storedOrder = requireNonNull(getResponse.getBody());
+        assertPriceEquals(new BigDecimal("100999.99"), storedOrder.getItems().get(0).getUnitPrice());
+        assertPriceEquals(new BigDecimal("100999.99"), storedOrder.getTotal());
+    }
+
+    @Test
+    void putKeepsUnitPricesOfStoredItems() {
+        Product vwBeetle = createVwBeetleProduct();
+        Order order = createOrder(vwBeetle);
+        vwBeetle.setPrice(BigDecimal.ONE);
+        ResponseEntity<Product> productResponse = restClient.put()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(vwBeetle)
+                .retrieve()
+                .toEntity(Product.class);
+        assertTrue(productResponse.getStatusCode().is2xxSuccessful());
+
+        order.getItems().get(0).setQuantity(2);
+        order.getItems().get(0).setUnitPrice(BigDecimal.TEN);
+        order.getItems().add(OrderItem.builder().product(vwBeetle).quantity(1).build());
+        Order updatedOrder = put(order);
+
+        assertPriceEquals(new BigDecimal("100999.99"), updatedOrder.getItems().get(0).getUnitPrice());
+        assertPriceEquals(BigDecimal.ONE, updatedOrder.getItems().get(1).getUnitPrice());
+        assertPriceEquals(new BigDecimal("201999.98").add(BigDecimal.ONE), updatedOrder.getTotal());
+    }
+
+    @Test
+    void putKeepsUnitPricesOfRemovedProducts() {
+        Product product = createVwBeetleProduct();
+        Order order = createOrder(product);
+        ResponseEntity<Void> deleteResponse = restClient.delete()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/{id}", product.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity();
+        assertTrue(deleteResponse.getStatusCode().is2xxSuccessful());
+
+        order.getItems().get(0).setQuantity(2);
+        Order updatedOrder = put(order);
+
+        assertPriceEquals(new BigDecimal("100999.99"), updatedOrder.getItems().get(0).getUnitPrice());
+        assertPriceEquals(new BigDecimal("201999.98"), updatedOrder.getTotal());
+    }
+
+    @Test
+    void putReturns400IfNewItemReferencesRemovedProduct() {
+        Product product = createVwBeetleProduct();
+        Order order = createOrder(product);
+        deleteProduct(product);
+
+        order.getItems().add(OrderItem.builder().product(product).quantity(1).build());
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.put()
+                .uri(uriBase + ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(order)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(Order.class));
+    }
+
+    @Test
+    void postItemReturns400IfProductRemoved() {
+        Product product = createVwBeetleProduct();
+        Order order = createOrder(createMercedesBenzVitoProduct());
+        deleteProduct(product);
+
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.post()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}/items", order.getId())
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(OrderItem.builder().product(product).quantity(1).build())
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(Order.class));
+    }
+
+    @Test
+    void getReturnsRemovedProductsByIdOnly() {
+        Product product = createVwBeetleProduct();
+        Order order = createOrder(product);
+        ResponseEntity<Void> deleteResponse = restClient.delete()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/{id}", product.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity();
+        assertTrue(deleteResponse.getStatusCode().is2xxSuccessful());
+
+        ResponseEntity<Order> getResponse = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Order.class);
+
+        OrderItem item = requireNonNull(getResponse.getBody()).getItems().get(0);
+        assertEquals(product.getId(), item.getProduct().getId());
+        assertNull(item.getProduct().getName());
+        assertPriceEquals(new BigDecimal("100999.99"), item.getUnitPrice());
+    }
+
+    @Test
+    void deleteRemovesOrderItemsByProductId() {
+        // create order
+        Product product = createVwBeetleProduct();
+        Order order = createOrder(product, createMercedesBenzVitoProduct(), product);
+
+        // remove items referencing product
+        ResponseEntity<Order> removeResponse = restClient.delete()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}/items/{productId}", order.getId(), product.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(removeResponse.getStatusCode().is2xxSuccessful());
+
+        Order updatedOrder = requireNonNull(removeResponse.getBody());
+        assertEquals(1, updatedOrder.getItems().size());
+        assertEquals("Vito", updatedOrder.getItems().get(0).getProduct().getName());
+        assertEquals(1, updatedOrder.getVersion());
+    }
+
+    @Test
+    void deleteReturns404IfOrderItemWasNotFound() {
+        Order order = createOrder(createVwBeetleProduct());
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.delete()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}/items/{index}", order.getId(), 1)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 404, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(Order.class));
+    }
+
+    @Test
+    void getReturns304IfOrderWasNotModified() {
+        Order order = createOrder(createVwBeetleProduct());
+
+        // get order with its entity tag
+        ResponseEntity<Order> getResponse = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Order.class);
+        String eTag = getResponse.getHeaders().getETag();
+        assertNotNull(eTag);
+
+        // get unmodified order
+        ResponseEntity<Void> notModifiedResponse = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .retrieve()
+                .toBodilessEntity();
+        assertEquals(HttpStatus.NOT_MODIFIED, notModifiedResponse.getStatusCode());
+
+        // modify order using its entity tag instead of its version
+        order.setVersion(null);
+        order.getItems().get(0).setQuantity(2);
+        ResponseEntity<Order> updateResponse = restClient.put()
+                .uri(uriBase + ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .body(order)
+                .retrieve()
+                .toEntity(Order.class);
+        assertEquals(1, requireNonNull(updateResponse.getBody()).getVersion());
+        assertNotEquals(eTag, updateResponse.getHeaders().getETag());
+
+        // get modified order
+        ResponseEntity<Order> modifiedResponse = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .retrieve()
+                .toEntity(Order.class);
+        assertEquals(HttpStatus.OK, modifiedResponse.getStatusCode());
+        assertEquals(2, requireNonNull(modifiedResponse.getBody()).getItems().get(0).getQuantity());
+        assertEquals(updateResponse.getHeaders().getETag(), modifiedResponse.getHeaders().getETag());
+    }
+
+    @Test
+    void getReturns200IfProductOfOrderWasModified() {
+        Product product = createVwBeetleProduct();
+        Order order = createOrder(product);
+        String eTag = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity()
+                .getHeaders()
+                .getETag();
+
+        // modify the product, leaving the order as is
+        product.setName("Käfer");
+        ResponseEntity<Product> productResponse = restClient.put()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(product)
+                .retrieve()
+                .toEntity(Product.class);
+        assertTrue(productResponse.getStatusCode().is2xxSuccessful());
+
+        // get order embedding the modified product
+        ResponseEntity<Order> modifiedResponse = restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/{id}", order.getId())
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .retrieve()
+                .toEntity(Order.class);
+        assertEquals(HttpStatus.OK, modifiedResponse.getStatusCode());
+        assertEquals(0, requireNonNull(modifiedResponse.getBody()).getVersion());
+        assertEquals("Käfer", modifiedResponse.getBody().getItems().get(0).getProduct().getName());
+        assertNotEquals(eTag, modifiedResponse.getHeaders().getETag());
+    }
+
+    private static void assertPriceEquals(BigDecimal expected, BigDecimal actual) {
+        assertNotNull(actual);
+        assertEquals(0, expected.compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+
+    private Order put(Order order) {
+        ResponseEntity<Order> updateResponse = restClient.put()
+                .uri(uriBase + ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(order)
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(updateResponse.getStatusCode().is2xxSuccessful());
+        return requireNonNull(updateResponse.getBody());
+    }
+
+    private Order createOrder(Product... products) {
+        ResponseEntity<Order> createResponse = restClient.post()
+                .uri(uriBase + ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(DummyData.buildOrder("1", products))
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(createResponse.getStatusCode().is2xxSuccessful());
+        return requireNonNull(createResponse.getBody());
+    }
+
+    private void deleteProduct(Product product) {
+        ResponseEntity<Void> deleteResponse = restClient.delete()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/{id}", product.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity();
+        assertTrue(deleteResponse.getStatusCode().is2xxSuccessful());
+    }
+
     private Product createVwBeetleProduct() {
         ResponseEntity<Product> createResponse = restClient.post()
                 .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH)
@@ -0,0 +1,132 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.BrandRevenue;
+import com.kpliuta.demo.repository.CustomerSpend;
+import com.kpliuta.demo.repository.ProductSales;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.kpliuta.demo.DummyData.buildMercedesBenzVitoProduct;
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+class OrderStatsTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String ORDER_STATS_PATH = "/api/order/stats";
+
+    @Test
+    void getReturnsStatsOfOrders() {
+        Product vitoProduct = createProduct(buildMercedesBenzVitoProduct());
+        Product vwBeetleProduct = createProduct(buildVwBeetleProduct());
+        createOrder(DummyData.buildOrder("1", vwBeetleProduct, vitoProduct));
+        Order order = DummyData.buildOrder("2", vwBeetleProduct);
+        order.getItems().get(0).setQuantity(2);
+        createOrder(order);
+        refreshStats();
+
+        List<BrandRevenue> brands = get("/brands", new ParameterizedTypeReference<>() {
+        });
+        assertEquals(List.of("VW", "Porsche"), brands.stream().map(BrandRevenue::brand).toList());
+        assertEquals(3, brands.get(0).quantity());
+        assertPriceEquals(new BigDecimal("302999.97"), brands.get(0).revenue());
+        assertEquals(1, brands.get(1).quantity());
+        assertPriceEquals(new BigDecimal("300999.99"), brands.get(1).revenue());
+
+        List<ProductSales> products = get("/products?limit=1", new ParameterizedTypeReference<>() {
+        });
+        assertEquals(1, products.size());
+        assertEquals(vwBeetleProduct.getId(), products.get(0).productId());
+        assertEquals(vwBeetleProduct.getName(), products.get(0).name());
+        assertEquals(3, products.get(0).quantity());
+
+        List<CustomerSpend> customers = get("/customers", new ParameterizedTypeReference<>() {
+        });
+        assertEquals(List.of("1", "2"), customers.stream().map(CustomerSpend::customerId).toList());
+        assertPriceEquals(new BigDecimal("401999.98"), customers.get(0).spend());
+
+        List<CustomerSpend> customer = get("/customers?customerId=2", new ParameterizedTypeReference<>() {
+        });
+        assertEquals(1, customer.size());
+        assertEquals(1, customer.get(0).orders());
+        assertPriceEquals(new BigDecimal("201999.98"), customer.get(0).spend());
+    }
+
+    @Test
+    void getReturnsEmptyStatsWithoutOrders() {
+        refreshStats();
+        assertTrue(get("/brands", new ParameterizedTypeReference<List<BrandRevenue>>() {
+        }).isEmpty());
+    }
+
+    @Test
+    void getReturns400IfLimitOutOfRange() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + ORDER_STATS_PATH + "/products?limit={limit}", 1001)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(String.class));
+    }
+
+    /**
+     * Makes created orders visible to the statistics, which they are right away unless materialized.
+     */
+    void refreshStats() {
+    }
+
+    private <T> T get(String path, ParameterizedTypeReference<T> type) {
+        ResponseEntity<T> response = restClient.get()
+                .uri(uriBase + ORDER_STATS_PATH + path)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(type);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return requireNonNull(response.getBody());
+    }
+
+    private static void assertPriceEquals(BigDecimal expected, BigDecimal actual) {
+        assertNotNull(actual);
+        assertEquals(0, expected.compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+
+    private void createOrder(Order order) {
+        ResponseEntity<Order> createResponse = restClient.post()
+                .uri(uriBase + OrderRestControllerTest.ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(order)
+                .retrieve()
+                .toEntity(Order.class);
+        assertTrue(createResponse.getStatusCode().is2xxSuccessful());
+    }
+
+    private Product createProduct(Product product) {
+        ResponseEntity<Product> createResponse = restClient.post()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(product)
+                .retrieve()
+                .toEntity(Product.class);
+        assertTrue(createResponse.getStatusCode().is2xxSuccessful());
+        return requireNonNull(createResponse.getBody());
+    }
+}
@@ -0,0 +1,66 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.OrderTotalBackfill;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.math.BigDecimal;
+
+import static com.kpliuta.demo.DummyData.buildPorsche911Product;
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderTotalBackfillTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    @Autowired
+    OrderTotalBackfill orderTotalBackfill;
+
+    @Test
+    void pricesOrdersWithoutTotal() {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Product porsche911 = mongoTemplate.insert(buildPorsche911Product());
+        Order unpricedOrder = DummyData.buildOrder("1", vwBeetle, porsche911, vwBeetle);
+        unpricedOrder.getItems().get(1).setQuantity(2);
+        mongoTemplate.insert(unpricedOrder);
+        Order pricedOrder = DummyData.buildOrder("2", vwBeetle);
+        pricedOrder.getItems().get(0).setUnitPrice(BigDecimal.ONE);
+        pricedOrder.setTotal(BigDecimal.ONE);
+        mongoTemplate.insert(pricedOrder);
+
+        orderTotalBackfill.backfill();
+
+        Order backfilledOrder = mongoTemplate.findById(unpricedOrder.getId(), Order.class);
+        assertNotNull(backfilledOrder);
+        assertEquals(0, vwBeetle.getPrice().compareTo(backfilledOrder.getItems().get(0).getUnitPrice()));
+        assertEquals(0, porsche911.getPrice().compareTo(backfilledOrder.getItems().get(1).getUnitPrice()));
+        assertEquals(0, new BigDecimal("603999.96").compareTo(backfilledOrder.getTotal()));
+        assertEquals(unpricedOrder.getVersion(), backfilledOrder.getVersion());
+
+        Order untouchedOrder = mongoTemplate.findById(pricedOrder.getId(), Order.class);
+        assertNotNull(untouchedOrder);
+        assertEquals(0, BigDecimal.ONE.compareTo(untouchedOrder.getTotal()));
+    }
+
+    @Test
+    void backfillRunsOnceOnly() {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Order unpricedOrder = mongoTemplate.insert(DummyData.buildOrder("1", vwBeetle));
+
+        // the backfill has completed at the startup of the context
+        orderTotalBackfill.afterSingletonsInstantiated();
+
+        Order storedOrder = mongoTemplate.findById(unpricedOrder.getId(), Order.class);
+        assertNotNull(storedOrder);
+        assertNull(storedOrder.getTotal());
+    }
+}
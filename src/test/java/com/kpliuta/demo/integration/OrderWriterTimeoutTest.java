@@ -0,0 +1,98 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.kpliuta.demo.DummyData.buildPorsche911Product;
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Updates do not wait for the updates of the same order at all, so that any of them arriving meanwhile is rejected as
+ * busy rather than as modified.
+ */
+@TestPropertySource(properties = {
+        "demo.order.writer.enabled=true",
+        "demo.order.writer.platform-thread-max-wait=0s",
+        "demo.order.writer.retry-after=2s"
+})
+class OrderWriterTimeoutTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String ORDER_RESOURCE_PATH = "/api/order";
+
+    @Test
+    void updatesWaitingTooLongAreRejectedAsBusy() throws Exception {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Order created = requireNonNull(restClient.post()
+                .uri(uriBase + ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(DummyData.buildOrder("1", vwBeetle))
+                .retrieve()
+                .body(Order.class));
+
+        int updates = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(updates);
+        List<ResponseEntity<Void>> responses = new ArrayList<>();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ResponseEntity<Void>>> futures = new ArrayList<>();
+            for (int i = 0; i < updates; i++) {
+                Product product = mongoTemplate.insert(buildPorsche911Product());
+                Order order = DummyData.buildOrder("1", vwBeetle);
+                order.setId(created.getId());
+                order.setVersion(created.getVersion());
+                order.getItems().add(OrderItem.builder().product(product).quantity(1).build());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return restClient.put()
+                            .uri(uriBase + ORDER_RESOURCE_PATH)
+                            .contentType(APPLICATION_JSON)
+                            .accept(APPLICATION_JSON)
+                            .body(order)
+                            .retrieve()
+                            .onStatus(status -> true, (request, response) -> {
+                            })
+                            .toBodilessEntity();
+                }));
+            }
+            start.countDown();
+            for (Future<ResponseEntity<Void>> future : futures) {
+                responses.add(future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // all updates are of the same version, so that a single one succeeds and the rest are rejected either way
+        assertEquals(1, responses.stream().filter(response -> response.getStatusCode().value() == 200).count());
+        for (ResponseEntity<Void> response : responses) {
+            int status = response.getStatusCode().value();
+            assertTrue(status == 200 || status == 412 || status == 503, "Unexpected status " + status);
+            if (status == 503) {
+                assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            }
+        }
+        assertEquals(1, requireNonNull(mongoTemplate.findById(created.getId(), Order.class)).getVersion());
+    }
+}
@@ -0,0 +1,87 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.kpliuta.demo.DummyData.buildPorsche911Product;
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Merged updates of the same order are attempted once, so that any of them racing another one would be rejected.
+ */
+@TestPropertySource(properties = {
+        "demo.order.writer.enabled=true",
+        "demo.order.writer.platform-thread-max-wait=5s",
+        "demo.order.merge.max-attempts=1"
+})
+class OrderWritersTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String ORDER_RESOURCE_PATH = "/api/order";
+
+    @Test
+    void concurrentUpdatesOfSameOrderAreSerialized() throws Exception {
+        Product vwBeetle = mongoTemplate.insert(buildVwBeetleProduct());
+        Order created = requireNonNull(restClient.post()
+                .uri(uriBase + ORDER_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(DummyData.buildOrder("1", vwBeetle))
+                .retrieve()
+                .body(Order.class));
+
+        int updates = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(updates);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<HttpStatusCode>> statuses = new ArrayList<>();
+            for (int i = 0; i < updates; i++) {
+                // every update adds another product to the same version
+                Product product = mongoTemplate.insert(buildPorsche911Product());
+                Order order = DummyData.buildOrder("1", vwBeetle);
+                order.setId(created.getId());
+                order.setVersion(created.getVersion());
+                order.getItems().add(OrderItem.builder().product(product).quantity(1).build());
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return restClient.put()
+                            .uri(uriBase + ORDER_RESOURCE_PATH + "?merge=true")
+                            .contentType(APPLICATION_JSON)
+                            .accept(APPLICATION_JSON)
+                            .body(order)
+                            .retrieve()
+                            .toBodilessEntity()
+                            .getStatusCode();
+                }));
+            }
+            start.countDown();
+            for (Future<HttpStatusCode> status : statuses) {
+                assertEquals(200, status.get(10, TimeUnit.SECONDS).value());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Order stored = mongoTemplate.findById(created.getId(), Order.class);
+        assertEquals(1 + updates, stored.getItems().size());
+        assertEquals(updates, stored.getVersion());
+    }
+}
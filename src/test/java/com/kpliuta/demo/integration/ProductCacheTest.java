@@ -0,0 +1,65 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.cache.ProductCache;
+import com.kpliuta.demo.domain.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    @Autowired
+    ProductCache productCache;
+
+    @Test
+    void copiesAllFields() throws IllegalAccessException {
+        Product product = DummyData.buildVwBeetleProduct();
+        product.setRemoved(true);
+        product = mongoTemplate.insert(product);
+        productCache.invalidate(product.getId());
+
+        Product cached = productCache.findById(product.getId()).orElseThrow();
+        Product copy = productCache.findById(product.getId()).orElseThrow();
+        Product loadedAlong = productCache.findAllById(List.of(product.getId())).get(product.getId());
+
+        assertNotSame(cached, copy);
+        for (Class<?> type = Product.class; type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object expected = field.get(product);
+                // a field left at its default would not tell whether it is copied
+                assertNotNull(expected, field.getName());
+                assertNotEquals(false, expected, field.getName());
+                assertEquals(expected, field.get(cached), field.getName());
+                assertEquals(expected, field.get(copy), field.getName());
+                assertEquals(expected, field.get(loadedAlong), field.getName());
+            }
+        }
+    }
+
+    @Test
+    void modifiedCopyDoesNotChangeCachedProduct() {
+        Product product = mongoTemplate.insert(DummyData.buildVwBeetleProduct());
+
+        Product copy = productCache.findById(product.getId()).orElseThrow();
+        copy.setName("Golf");
+
+        assertEquals(product.getName(), productCache.findById(product.getId()).orElseThrow().getName());
+    }
+}
@@ -0,0 +1,66 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.ProductPurge;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "demo.product.purge.enabled=true",
+        "demo.product.purge.batch-size=2",
+        "demo.product.purge.batch-delay=0ms",
+        "demo.product.purge.archive=true"
+})
+class ProductPurgeTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String ARCHIVE_COLLECTION = "productArchive";
+
+    @Autowired
+    ProductPurge productPurge;
+
+    @AfterEach
+    void dropArchive() {
+        mongoTemplate.dropCollection(ARCHIVE_COLLECTION);
+    }
+
+    @Test
+    void purgesUnreferencedRemovedProducts() {
+        List<Product> unreferencedProducts = IntStream.range(0, 3)
+                .mapToObj(i -> insertProduct(true))
+                .toList();
+        Product referencedProduct = insertProduct(true);
+        mongoTemplate.insert(DummyData.buildOrder("1", referencedProduct));
+        Product product = insertProduct(false);
+
+        assertEquals(3, productPurge.purge());
+
+        assertEquals(List.of(referencedProduct.getId(), product.getId()),
+                mongoTemplate.findAll(Product.class).stream().map(Product::getId).sorted().toList());
+        assertEquals(unreferencedProducts.stream().map(Product::getId).sorted().toList(),
+                mongoTemplate.findAll(Product.class, ARCHIVE_COLLECTION).stream().map(Product::getId).sorted().toList());
+
+        assertEquals(0, productPurge.purge());
+    }
+
+    private Product insertProduct(boolean removed) {
+        Product product = buildVwBeetleProduct();
+        product.setRemoved(removed);
+        return mongoTemplate.insert(product);
+    }
+}
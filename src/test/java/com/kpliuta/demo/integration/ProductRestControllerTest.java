@@ -1,9 +1,13 @@
 package com.kpliuta.demo.integration;
 
 import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.web.CacheStatistics;
+import com.kpliuta.demo.web.CursorPageableRequest;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -93,6 +97,44 @@ class ProductRestControllerTest extends BaseIntegrationTest {
         assertTrue(requireNonNull(getResponse.getBody()).isEmpty());
     }
 
+    @Test
+    void getWithCursorReturnsAllPages() {
+        // create products
+        for (Product product : List.of(buildVwBeetleProduct(), buildPorsche911Product(), buildMercedesBenzVitoProduct())) {
+            ResponseEntity<Product> createResponse = restClient.post()
+                    .uri(uriBase + PRODUCT_RESOURCE_PATH)
+                    .contentType(APPLICATION_JSON)
+                    .accept(APPLICATION_JSON)
+                    .body(product)
+                    .retrieve()
+                    .toEntity(Product.class);
+            assertTrue(createResponse.getStatusCode().is2xxSuccessful());
+        }
+
+        // get first page
+        ResponseEntity<List<Product>> firstResponse = restClient.get()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "?after=&pageSize={size}", 2)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+        assertTrue(firstResponse.getStatusCode().is2xxSuccessful());
+        assertEquals(2, requireNonNull(firstResponse.getBody()).size());
+        String next = firstResponse.getHeaders().getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER);
+        assertNotNull(next);
+
+        // get last page
+        ResponseEntity<List<Product>> lastResponse = restClient.get()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "?after={after}&pageSize={size}", next, 2)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+        assertTrue(lastResponse.getStatusCode().is2xxSuccessful());
+        assertEquals(1, requireNonNull(lastResponse.getBody()).size());
+        assertNull(lastResponse.getHeaders().getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER));
+    }
+
     @Test
     void getReturns400IfPagingParametersNotPassed() {
         assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
@@ -129,6 +171,44 @@ class ProductRestControllerTest extends BaseIntegrationTest {
         assertNotNull(getResponse.getBody());
     }
 
+    @Test
+    void getReturnsCachedProductUntilItIsUpdated() {
+        // create product
+        ResponseEntity<Product> createResponse = restClient.post()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(buildPorsche911Product())
+                .retrieve()
+                .toEntity(Product.class);
+        assertTrue(createResponse.getStatusCode().is2xxSuccessful());
+
+        Product product = requireNonNull(createResponse.getBody());
+
+        // get product twice, the second one is served from cache
+        CacheStatistics initialStatistics = getProductCacheStatistics();
+        assertEquals(product.getPrice(), getProduct(product.getId()).getPrice());
+        assertEquals(product.getPrice(), getProduct(product.getId()).getPrice());
+        CacheStatistics statistics = getProductCacheStatistics();
+        assertEquals(initialStatistics.missCount() + 1, statistics.missCount());
+        assertEquals(initialStatistics.hitCount() + 1, statistics.hitCount());
+
+        // update product
+        BigDecimal newPrice = BigDecimal.valueOf(999);
+        product.setPrice(newPrice);
+        ResponseEntity<Product> updateResponse = restClient.put()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(product)
+                .retrieve()
+                .toEntity(Product.class);
+        assertTrue(updateResponse.getStatusCode().is2xxSuccessful());
+
+        // get returns updated product
+        assertEquals(newPrice, getProduct(product.getId()).getPrice());
+    }
+
     @Test
     void getReturns404IfProductWasNotFound() {
         assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
@@ -141,6 +221,26 @@ class ProductRestControllerTest extends BaseIntegrationTest {
                 .toEntity(Product.class));
     }
 
+    @Test
+    void getReturns404IfProductWasDeleted() {
+        Product product = createPorsche911Product();
+        ResponseEntity<Void> deleteResponse = restClient.delete()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "/{id}", product.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity();
+        assertTrue(deleteResponse.getStatusCode().is2xxSuccessful());
+
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "/{id}", product.getId())
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 404, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(Product.class));
+    }
+
     @Test
     void postCreatesVwBeetleProduct() {
         Product product = buildVwBeetleProduct();
@@ -245,4 +345,69 @@ class ProductRestControllerTest extends BaseIntegrationTest {
                 })
                 .toEntity(Product.class));
     }
+
+    @Test
+    void getReturns304IfProductWasNotModified() {
+        Product product = createPorsche911Product();
+
+        ResponseEntity<Void> response = restClient.get()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "/{id}", product.getId())
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + product.getId() + "-" + product.getVersion() + "\"")
+                .retrieve()
+                .toBodilessEntity();
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    }
+
+    @Test
+    void putReturns412IfEntityTagDoesNotMatch() {
+        Product product = createPorsche911Product();
+        String staleETag = "\"" + product.getId() + "-" + (product.getVersion() + 1) + "\"";
+        product.setVersion(null);
+
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.put()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, staleETag)
+                .body(product)
+                .retrieve()
+                .onStatus(status -> status.value() == 412, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(Product.class));
+    }
+
+    private Product createPorsche911Product() {
+        ResponseEntity<Product> createResponse = restClient.post()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(buildPorsche911Product())
+                .retrieve()
+                .toEntity(Product.class);
+        assertTrue(createResponse.getStatusCode().is2xxSuccessful());
+        assertNotNull(createResponse.getHeaders().getETag());
+        return requireNonNull(createResponse.getBody());
+    }
+
+    private Product getProduct(String id) {
+        ResponseEntity<Product> getResponse = restClient.get()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "/{id}", id)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(Product.class);
+        assertTrue(getResponse.getStatusCode().is2xxSuccessful());
+        return requireNonNull(getResponse.getBody());
+    }
+
+    private CacheStatistics getProductCacheStatistics() {
+        ResponseEntity<CacheStatistics> response = restClient.get()
+                .uri(uriBase + "/api/cache/product")
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(CacheStatistics.class);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return requireNonNull(response.getBody());
+    }
 }
@@ -0,0 +1,173 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.IndexInitializer;
+import com.kpliuta.demo.repository.ProductPriceMigration;
+import com.kpliuta.demo.web.CursorPageableRequest;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@Import(MongoCommandRecorder.Config.class)
+class ProductSearchTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    static final String PRODUCT_SEARCH_PATH = "/api/product/search";
+
+    @Autowired
+    IndexInitializer indexInitializer;
+
+    @Autowired
+    ProductPriceMigration productPriceMigration;
+
+    @Autowired
+    MongoCommandRecorder mongoCommandRecorder;
+
+    @BeforeEach
+    void createIndexes() {
+        // collections are dropped along with their indexes after each test
+        indexInitializer.run(new DefaultApplicationArguments());
+    }
+
+    @Test
+    void searchByTextReturnsMostRelevantFirst() {
+        Product beetle = insertProduct("VW", "Beetle", "Beetle", "100999.99");
+        Product cabrio = insertProduct("VW", "Cabrio", "Based on the Beetle", "110999.99");
+        insertProduct("Porsche", "911", "10% discount", "300999.99");
+        Product removed = buildProduct("VW", "Beetle", "Beetle", "100999.99");
+        removed.setRemoved(true);
+        mongoTemplate.insert(removed);
+
+        ResponseEntity<List<Product>> firstPage = search("?q={q}&pageSize=1", "beetle");
+        assertEquals(List.of(beetle.getId()), ids(firstPage));
+        String cursor = firstPage.getHeaders().getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+
+        ResponseEntity<List<Product>> secondPage = search("?q={q}&pageSize=1&after={after}", "beetle", cursor);
+        assertEquals(List.of(cabrio.getId()), ids(secondPage));
+        assertNull(secondPage.getHeaders().getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void searchByBrandAndPriceReturnsCheapestFirst() {
+        Product cheap = insertProduct("VW", "Polo", null, "9.99");
+        Product expensive = insertProduct("VW", "Golf", null, "100");
+        Product pricey = insertProduct("VW", "Passat", null, "1000");
+        insertProduct("VW", "Touareg", null, "10000");
+        insertProduct("Porsche", "911", null, "50");
+
+        ResponseEntity<List<Product>> firstPage = search("?brand={brand}&minPrice={min}&maxPrice={max}&pageSize=2",
+                "VW", "9.99", "1000");
+        assertEquals(List.of(cheap.getId(), expensive.getId()), ids(firstPage));
+        assertEquals(0, new BigDecimal("9.99").compareTo(requireNonNull(firstPage.getBody()).get(0).getPrice()));
+        String cursor = firstPage.getHeaders().getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+
+        ResponseEntity<List<Product>> secondPage = search(
+                "?brand={brand}&minPrice={min}&maxPrice={max}&pageSize=2&after={after}", "VW", "9.99", "1000", cursor);
+        assertEquals(List.of(pricey.getId()), ids(secondPage));
+        assertNull(secondPage.getHeaders().getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void searchReturns400IfCursorOfOtherSearch() {
+        insertProduct("VW", "Beetle", "Beetle", "100999.99");
+        insertProduct("VW", "Beetle", "Beetle", "100999.99");
+        String cursor = search("?q={q}&pageSize=1", "beetle").getHeaders()
+                .getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER);
+
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + PRODUCT_SEARCH_PATH + "?pageSize=1&after={after}", cursor)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toEntity(String.class));
+    }
+
+    @Test
+    void searchDoesNotScanCollection() {
+        for (int i = 0; i < 100; i++) {
+            insertProduct(i % 2 == 0 ? "VW" : "Porsche", "Product " + i, "Description " + i, Integer.toString(i));
+        }
+        String cursor = search("?minPrice=10&pageSize=1").getHeaders()
+                .getFirst(CursorPageableRequest.NEXT_CURSOR_HEADER);
+
+        mongoCommandRecorder.reset(mongoTemplate.getCollectionName(Product.class));
+        search("?q={q}&brand={brand}&maxPrice=50&pageSize=10", "product", "VW");
+        search("?brand={brand}&minPrice=10&maxPrice=50&pageSize=10", "VW");
+        search("?minPrice=10&pageSize=10&after={after}", cursor);
+        List<BsonDocument> queries = mongoCommandRecorder.reset(mongoTemplate.getCollectionName(Product.class));
+
+        assertEquals(3, queries.size());
+        for (BsonDocument query : queries) {
+            Document explain = mongoTemplate.getDb().runCommand(new Document("explain", query)
+                    .append("verbosity", "queryPlanner"));
+            String plan = explain.toJson();
+            assertFalse(plan.contains("COLLSCAN"), () -> "collection scan by " + query + ": " + plan);
+        }
+    }
+
+    @Test
+    void migrationConvertsStringPrices() {
+        String collection = mongoTemplate.getCollectionName(Product.class);
+        mongoTemplate.getCollection(collection).insertOne(new Document("brand", "VW")
+                .append("name", "Beetle")
+                .append("price", "100999.99")
+                .append("removed", false));
+
+        productPriceMigration.migrate();
+
+        Document product = requireNonNull(mongoTemplate.getCollection(collection).find().first());
+        assertEquals(new Decimal128(new BigDecimal("100999.99")), product.get("price"));
+    }
+
+    private Product insertProduct(String brand, String name, String description, String price) {
+        return mongoTemplate.insert(buildProduct(brand, name, description, price));
+    }
+
+    private static Product buildProduct(String brand, String name, String description, String price) {
+        return Product.builder()
+                .brand(brand)
+                .name(name)
+                .description(description)
+                .price(new BigDecimal(price))
+                .build();
+    }
+
+    private ResponseEntity<List<Product>> search(String query, Object... uriVariables) {
+        ResponseEntity<List<Product>> response = restClient.get()
+                .uri(uriBase + PRODUCT_SEARCH_PATH + query, uriVariables)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(new ParameterizedTypeReference<>() {
+                });
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return response;
+    }
+
+    private static List<String> ids(ResponseEntity<List<Product>> response) {
+        return requireNonNull(response.getBody()).stream().map(Product::getId).toList();
+    }
+}
@@ -0,0 +1,72 @@
+package com.kpliuta.demo.integration;
+
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.kpliuta.demo.web.MediaTypes.APPLICATION_SMILE;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Runs the order API tests against the reactive implementation.
+ */
+@ActiveProfiles("reactive")
+class ReactiveOrderRestControllerTest extends OrderRestControllerTest {
+
+    @Test
+    void getReturns400IfFieldsPassed() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?pageNumber={number}&pageSize={size}&fields={fields}",
+                        0, 100, "customerId")
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toBodilessEntity());
+    }
+
+    @Test
+    void putReturns400InMergeMode() {
+        Order order = DummyData.buildOrder("1", DummyData.buildVwBeetleProduct());
+        order.setId("999");
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.put()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?merge=true")
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body(order)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toBodilessEntity());
+    }
+
+    @Test
+    void getReturns406ForSmile() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "?pageNumber={number}&pageSize={size}", 0, 100)
+                .accept(APPLICATION_SMILE)
+                .retrieve()
+                .onStatus(status -> status.value() == 406, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toBodilessEntity());
+    }
+
+    @Test
+    void bulkReturns404() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.post()
+                .uri(uriBase + ORDER_RESOURCE_PATH + "/bulk")
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .body("[]")
+                .retrieve()
+                .onStatus(status -> status.value() == 404, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toBodilessEntity());
+    }
+}
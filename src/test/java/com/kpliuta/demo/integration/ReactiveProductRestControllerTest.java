@@ -0,0 +1,39 @@
+package com.kpliuta.demo.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Runs the product API tests against the reactive implementation.
+ */
+@ActiveProfiles("reactive")
+class ReactiveProductRestControllerTest extends ProductRestControllerTest {
+
+    @Test
+    void getReturns400IfFieldsPassed() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "?pageNumber={number}&pageSize={size}&fields={fields}",
+                        0, 100, "name")
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toBodilessEntity());
+    }
+
+    @Test
+    void searchReturns404() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + PRODUCT_RESOURCE_PATH + "/search?q={q}&pageSize={size}", "beetle", 10)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 404, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toBodilessEntity());
+    }
+}
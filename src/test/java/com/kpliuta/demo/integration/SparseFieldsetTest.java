@@ -0,0 +1,123 @@
+package com.kpliuta.demo.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kpliuta.demo.DummyData;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+import static com.kpliuta.demo.DummyData.buildPorsche911Product;
+import static com.kpliuta.demo.DummyData.buildVwBeetleProduct;
+import static java.util.Objects.requireNonNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+class SparseFieldsetTest extends BaseIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.4");
+
+    @Test
+    void getProductsReturnsRequestedFields() {
+        mongoTemplate.insert(buildVwBeetleProduct());
+        mongoTemplate.insert(buildPorsche911Product());
+
+        JsonNode products = get(ProductRestControllerTest.PRODUCT_RESOURCE_PATH
+                + "?pageNumber=0&pageSize=10&fields=brand,name,price").getBody();
+
+        assertEquals(2, requireNonNull(products).size());
+        products.forEach(product -> assertEquals(Set.of("id", "version", "brand", "name", "price"), fieldNames(product)));
+    }
+
+    @Test
+    void getOrdersAfterReturnsRequestedFieldsWithoutProducts() {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        mongoTemplate.insert(DummyData.buildOrder("1", product, product));
+
+        JsonNode orders = get(OrderRestControllerTest.ORDER_RESOURCE_PATH
+                + "?after=&pageSize=10&fields=customerId,items.quantity").getBody();
+
+        JsonNode order = requireNonNull(orders).get(0);
+        assertEquals(Set.of("id", "version", "customerId", "items"), fieldNames(order));
+        assertEquals(2, order.get("items").size());
+        assertEquals(Set.of("quantity"), fieldNames(order.get("items").get(0)));
+    }
+
+    @Test
+    void getOrderResolvesRequestedProductFields() {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", product));
+
+        ResponseEntity<JsonNode> response = get(OrderRestControllerTest.ORDER_RESOURCE_PATH + "/" + order.getId()
+                + "?fields=items.product.name");
+
+        JsonNode item = requireNonNull(response.getBody()).get("items").get(0);
+        assertEquals(Set.of("id", "version", "items"), fieldNames(response.getBody()));
+        assertEquals(Set.of("product"), fieldNames(item));
+        assertEquals(product.getName(), item.get("product").get("name").asText());
+        assertNotEquals("\"" + order.getId() + "-" + order.getVersion() + "\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void getOrderReturns304IfProjectedOrderWasNotModified() {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        Order order = mongoTemplate.insert(DummyData.buildOrder("1", product));
+        String path = OrderRestControllerTest.ORDER_RESOURCE_PATH + "/" + order.getId() + "?fields=customerId";
+        String eTag = get(path).getHeaders().getETag();
+
+        ResponseEntity<Void> response = restClient.get()
+                .uri(uriBase + path)
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .retrieve()
+                .toBodilessEntity();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    }
+
+    @Test
+    void getProductTagsTellApartFieldsetsWithSameHashCode() {
+        Product product = mongoTemplate.insert(buildVwBeetleProduct());
+        String path = ProductRestControllerTest.PRODUCT_RESOURCE_PATH + "/" + product.getId() + "?fields=";
+
+        // "Aa" and "BB" have the same hash code, so do sets of them
+        assertNotEquals(get(path + "Aa").getHeaders().getETag(), get(path + "BB").getHeaders().getETag());
+    }
+
+    @Test
+    void getProductsReturns400IfFieldsAreInvalid() {
+        assertThrows(ExpectedHttpStatusException.class, () -> restClient.get()
+                .uri(uriBase + ProductRestControllerTest.PRODUCT_RESOURCE_PATH
+                        + "?pageNumber=0&pageSize=10&fields={fields}", "name,$where")
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .onStatus(status -> status.value() == 400, (request, response) -> {
+                    throw new ExpectedHttpStatusException();
+                })
+                .toBodilessEntity());
+    }
+
+    private ResponseEntity<JsonNode> get(String path) {
+        ResponseEntity<JsonNode> response = restClient.get()
+                .uri(uriBase + path)
+                .accept(APPLICATION_JSON)
+                .retrieve()
+                .toEntity(JsonNode.class);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return response;
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        return Set.copyOf(StreamSupport.stream(((Iterable<String>) node::fieldNames).spliterator(), false).toList());
+    }
+}
@@ -0,0 +1,35 @@
+package com.kpliuta.demo.load;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+
+import static com.kpliuta.demo.web.CursorPageableRequest.NEXT_CURSOR_HEADER;
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+/**
+ * Read-heavy browsing of the catalog: a user pages through products, as a mobile client with a sparse fieldset, and
+ * opens a few of them.
+ */
+public class CatalogBrowsingSimulation extends SloSimulation {
+
+    public CatalogBrowsingSimulation() {
+        setUpWithObjectives(getBrowseCatalogScenario());
+    }
+
+    private ScenarioBuilder getBrowseCatalogScenario() {
+        return scenario("Browse catalog")
+                .exec(http("browse-get-products")
+                        .get("/api/product?after=&pageSize=20&fields=brand,name,price")
+                        .check(status().is(200))
+                        .check(header(NEXT_CURSOR_HEADER).optional().saveAs("cursor")))
+                .doIf(session -> session.contains("cursor")).then(
+                        exec(http("browse-get-next-products")
+                                .get("/api/product?after=#{cursor}&pageSize=20&fields=brand,name,price")
+                                .check(status().is(200))))
+                .repeat(3).on(
+                        feed(randomRecords())
+                                .exec(http("browse-get-product")
+                                        .get("/api/product/#{productId}")
+                                        .check(status().is(200))));
+    }
+}
@@ -0,0 +1,43 @@
+package com.kpliuta.demo.load;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+
+import java.time.Duration;
+
+import static com.kpliuta.demo.load.LoadTestSupport.getHttpProtocolBuilder;
+import static com.kpliuta.demo.load.LoadTestSupport.getInitializeDataScenario;
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Keeps a constant number of concurrent users (the {@code users} system property) reading products and orders, to
+ * compare throughput and response time percentiles of platform and virtual thread request handling.
+ */
+public class ConcurrencySimulation extends Simulation {
+
+    static final int USERS = Integer.getInteger("users", 100);
+    static final Duration DURATION = Duration.ofSeconds(Long.getLong("durationSeconds", 60));
+
+    public ConcurrencySimulation() {
+        setUp(
+                getInitializeDataScenario()
+                        .injectOpen(atOnceUsers(1))
+                        .andThen(getReadScenario()
+                                .injectClosed(
+                                        rampConcurrentUsers(1).to(USERS).during(Duration.ofSeconds(10)),
+                                        constantConcurrentUsers(USERS).during(DURATION)))
+        ).protocols(getHttpProtocolBuilder());
+    }
+
+    private static ScenarioBuilder getReadScenario() {
+        return scenario("Read products and orders")
+                .exec(http("get-products")
+                        .get("/api/product?pageNumber=0&pageSize=100")
+                        .check(status().is(200)))
+                .exec(http("get-orders")
+                        .get("/api/order?pageNumber=0&pageSize=100")
+                        .check(status().is(200)));
+    }
+}
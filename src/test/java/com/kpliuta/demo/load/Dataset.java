@@ -0,0 +1,157 @@
+package com.kpliuta.demo.load;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import com.kpliuta.demo.repository.BulkItemResult;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.kpliuta.demo.load.LoadTestSupport.*;
+
+/**
+ * Products and orders of many customers created through the bulk endpoints before a simulation. The size is given by
+ * the {@code products}, {@code orders} and {@code customers} system properties.
+ */
+final class Dataset {
+
+    static final int PRODUCTS = Integer.getInteger("products", 1000);
+    static final int ORDERS = Integer.getInteger("orders", 10_000);
+    static final int CUSTOMERS = Integer.getInteger("customers", 1000);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_ITEMS = 5;
+
+    private final List<String> productIds;
+    private final List<List<String>> orderIdsByCustomer;
+
+    private Dataset(List<String> productIds, List<List<String>> orderIdsByCustomer) {
+        this.productIds = productIds;
+        this.orderIdsByCustomer = orderIdsByCustomer;
+    }
+
+    static Dataset create() {
+        HttpClient client = HttpClient.newHttpClient();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .brand("Brand " + i % 50)
+                    .name("Product " + i)
+                    .description("Description of product " + i)
+                    .price(BigDecimal.valueOf(1000 + i, 2))
+                    .build());
+        }
+        List<String> productIds = bulkWrite(client, "/api/product/bulk", products);
+
+        Dataset dataset = new Dataset(productIds, List.of());
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(dataset.buildOrder(customerId(i % CUSTOMERS)));
+        }
+        List<String> orderIds = bulkWrite(client, "/api/order/bulk", orders);
+
+        // bulk results come in request order, so the i-th order belongs to customer i % CUSTOMERS
+        List<List<String>> orderIdsByCustomer = new ArrayList<>();
+        for (int i = 0; i < orderIds.size(); i++) {
+            if (i < CUSTOMERS) {
+                orderIdsByCustomer.add(new ArrayList<>());
+            }
+            orderIdsByCustomer.get(i % CUSTOMERS).add(orderIds.get(i));
+        }
+        return new Dataset(productIds, orderIdsByCustomer);
+    }
+
+    /**
+     * @return feeder record with a random product, a random customer and one of the orders of this customer
+     */
+    Map<String, Object> randomRecord() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (orderIdsByCustomer.isEmpty()) {
+            return Map.of(
+                    "productId", randomProductId(),
+                    "orderId", "",
+                    "customerId", customerId(random.nextInt(CUSTOMERS)));
+        }
+        int customer = random.nextInt(orderIdsByCustomer.size());
+        List<String> orderIds = orderIdsByCustomer.get(customer);
+        return Map.of(
+                "productId", randomProductId(),
+                "orderId", orderIds.get(random.nextInt(orderIds.size())),
+                "customerId", customerId(customer));
+    }
+
+    /**
+     * @return new order of given customer with one to {@value #MAX_ITEMS} random products
+     */
+    Order buildOrder(String customerId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = random.nextInt(1, MAX_ITEMS + 1); i > 0; i--) {
+            items.add(OrderItem.builder().product(product(randomProductId())).quantity(random.nextInt(1, 4)).build());
+        }
+        return Order.builder().customerId(customerId).items(items).build();
+    }
+
+    String randomProductId() {
+        return productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+    }
+
+    /**
+     * @return reference to a product, all an order item needs to be written
+     */
+    static Product product(String id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+
+    private static String customerId(int i) {
+        return "customer-" + i;
+    }
+
+    private static <T> List<String> bulkWrite(HttpClient client, String path, List<T> entities) {
+        List<String> ids = new ArrayList<>(entities.size());
+        for (int from = 0; from < entities.size(); from += BATCH_SIZE) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            toJson(entities.subList(from, Math.min(from + BATCH_SIZE, entities.size())))))
+                    .build();
+            List<BulkItemResult> results = fromJson(send(client, request), new TypeReference<>() {
+            });
+            for (BulkItemResult result : results) {
+                if (result.status() != BulkItemResult.Status.CREATED) {
+                    throw new RuntimeException("Cannot create dataset: " + result);
+                }
+                ids.add(result.id());
+            }
+        }
+        return ids;
+    }
+
+    private static String send(HttpClient client, HttpRequest request) {
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("Cannot create dataset: " + response.statusCode() + " " + response.body());
+            }
+            return response.body();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+    }
+}
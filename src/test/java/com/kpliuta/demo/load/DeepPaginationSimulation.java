@@ -0,0 +1,49 @@
+package com.kpliuta.demo.load;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Session;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.kpliuta.demo.web.CursorPageableRequest.NEXT_CURSOR_HEADER;
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+/**
+ * Deep pages of orders: one scenario walks the cursors of up to {@code pages} (50) pages, the other one jumps to a
+ * random page by its number, which the database reaches by skipping all previous orders.
+ */
+public class DeepPaginationSimulation extends SloSimulation {
+
+    static final int PAGES = Integer.getInteger("pages", 50);
+    static final int PAGE_SIZE = 100;
+
+    public DeepPaginationSimulation() {
+        setUpWithObjectives(getWalkCursorsScenario(), getJumpToPageScenario());
+    }
+
+    private ScenarioBuilder getWalkCursorsScenario() {
+        return scenario("Walk order cursors")
+                .exec(session -> session.set("after", "").set("pages", 0))
+                .asLongAs(session -> session.contains("after") && session.getInt("pages") < PAGES).on(
+                        exec(http("cursor-get-orders")
+                                .get("/api/order?after=#{after}&pageSize=" + PAGE_SIZE)
+                                .check(status().is(200))
+                                .check(header(NEXT_CURSOR_HEADER).optional().saveAs("cursor")))
+                                .exec(session -> {
+                                    Session next = session.set("pages", session.getInt("pages") + 1).remove("after");
+                                    return session.contains("cursor")
+                                            ? next.set("after", session.getString("cursor")).remove("cursor")
+                                            : next;
+                                }));
+    }
+
+    private ScenarioBuilder getJumpToPageScenario() {
+        int lastPage = Math.max(Dataset.ORDERS / PAGE_SIZE - 1, 0);
+        return scenario("Jump to order page")
+                .exec(session -> session.set("pageNumber", ThreadLocalRandom.current().nextInt(lastPage + 1)))
+                .exec(http("offset-get-orders")
+                        .get("/api/order?pageNumber=#{pageNumber}&pageSize=" + PAGE_SIZE)
+                        .check(status().is(200)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.kpliuta.demo.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kpliuta.demo.domain.Order;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.util.List;
+
+import static com.kpliuta.demo.DummyData.*;
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Scenarios and helpers shared by simulations.
+ */
+final class LoadTestSupport {
+
+    final static ObjectMapper objectMapper = new ObjectMapper();
+
+    static final String BASE_URL = System.getProperty("baseUrl", "http://localhost:8080");
+
+    private LoadTestSupport() {
+    }
+
+    static ScenarioBuilder getInitializeDataScenario() {
+        return scenario("Initialize data")
+                .exec(http("create-product-1")
+                        .post("/api/product")
+                        .header("Content-Type", "application/json")
+                        .body(StringBody(toJson(buildVwBeetleProduct())))
+                        .check(status().is(200)))
+                .exec(http("create-product-2")
+                        .post("/api/product")
+                        .header("Content-Type", "application/json")
+                        .body(StringBody(toJson(buildMercedesBenzVitoProduct())))
+                        .check(status().is(200)))
+                .exec(http("create-product-3")
+                        .post("/api/product")
+                        .header("Content-Type", "application/json")
+                        .body(StringBody(toJson(buildPorsche911Product())))
+                        .check(status().is(200)))
+                .exec(http("create-order")
+                        .post("/api/order")
+                        .header("Content-Type", "application/json")
+                        .body(StringBody(toJson(buildOrder("1"))))
+                        .check(status().is(200)))
+                .exitHereIfFailed();
+    }
+
+    static HttpProtocolBuilder getHttpProtocolBuilder() {
+        return http.baseUrl(BASE_URL)
+                .acceptHeader("application/json");
+    }
+
+    static Order getUniqueElement(List<Order> orders) {
+        if (orders.size() != 1) {
+            throw new RuntimeException("It should be exactly one Order in the database");
+        }
+        return orders.get(0);
+    }
+
+    static <T> String toJson(T object) {
+        try {
+            return objectMapper.writeValueAsString(object);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static <T> List<T> fromJson(String json, TypeReference<List<T>> typeReference) {
+        try {
+            return objectMapper.readValue(json, typeReference);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
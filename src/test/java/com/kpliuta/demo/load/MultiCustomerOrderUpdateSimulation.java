@@ -0,0 +1,57 @@
+package com.kpliuta.demo.load;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import io.gatling.javaapi.core.ScenarioBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.kpliuta.demo.load.LoadTestSupport.fromJson;
+import static com.kpliuta.demo.load.LoadTestSupport.toJson;
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Customers updating their own orders among thousands of orders: contention is rare, unlike in
+ * {@link OrderUpdateSimulation}. Half of the updates add an item with a full order update, the other half remove one
+ * with the atomic item endpoint. The 412 responses to full order updates are tracked as conflicts, with their own
+ * objective.
+ */
+public class MultiCustomerOrderUpdateSimulation extends SloSimulation {
+
+    public MultiCustomerOrderUpdateSimulation() {
+        setUpWithObjectives(getUpdateOrderScenario(), getRemoveItemScenario());
+    }
+
+    private ScenarioBuilder getUpdateOrderScenario() {
+        return scenario("Add item to own order")
+                .feed(randomRecords())
+                .exec(http("update-order-get-order")
+                        .get("/api/order/#{orderId}")
+                        .check(status().is(200))
+                        .check(bodyString().saveAs("order")))
+                .exec(session -> {
+                    Order order = fromJson(session.getString("order"), Order.class);
+                    order.getItems().add(OrderItem.builder()
+                            .product(Dataset.product(session.getString("productId")))
+                            .quantity(ThreadLocalRandom.current().nextInt(1, 4))
+                            .build());
+                    return session.set("updated-order", toJson(order));
+                })
+                .exec(http("update-order-put-order")
+                        .put(OrderUpdateSimulation.UPDATE_ORDER_PATH)
+                        .header("Content-Type", "application/json")
+                        .body(StringBody(session -> session.getString("updated-order")))
+                        .check(status().in(200, 412).saveAs("status")))
+                .exec(trackConflict("status"));
+    }
+
+    private ScenarioBuilder getRemoveItemScenario() {
+        return scenario("Remove item from own order")
+                .feed(randomRecords())
+                .exec(http("remove-item-delete-item")
+                        .delete("/api/order/#{orderId}/items/0")
+                        .check(status().in(200, 404)));
+    }
+}
@@ -0,0 +1,28 @@
+package com.kpliuta.demo.load;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+
+import static com.kpliuta.demo.load.LoadTestSupport.toJson;
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Customers placing new orders of random products.
+ */
+public class OrderCreationSimulation extends SloSimulation {
+
+    public OrderCreationSimulation() {
+        setUpWithObjectives(getCreateOrderScenario());
+    }
+
+    private ScenarioBuilder getCreateOrderScenario() {
+        return scenario("Create order")
+                .feed(randomRecords())
+                .exec(http("create-order")
+                        .post("/api/order")
+                        .header("Content-Type", "application/json")
+                        .body(StringBody(session -> toJson(dataset().buildOrder(session.getString("customerId")))))
+                        .check(status().is(200)));
+    }
+}
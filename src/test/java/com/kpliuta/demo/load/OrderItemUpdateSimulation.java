@@ -0,0 +1,82 @@
+package com.kpliuta.demo.load;
+
+import com.kpliuta.demo.domain.Order;
+import com.kpliuta.demo.domain.OrderItem;
+import com.kpliuta.demo.domain.Product;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static com.kpliuta.demo.load.LoadTestSupport.*;
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Same load as {@link OrderUpdateSimulation}, but items are added and removed with the atomic item endpoints instead of
+ * full order updates, so the rate of 412 responses and the throughput of both approaches can be compared.
+ */
+public class OrderItemUpdateSimulation extends Simulation {
+
+    public OrderItemUpdateSimulation() {
+        setUp(
+                getInitializeDataScenario()
+                        .injectOpen(atOnceUsers(1)),
+                getAddItemToOrderScenario()
+                        .injectOpen(nothingFor(Duration.ofSeconds(5)), rampUsersPerSec(10).to(100).during(Duration.ofMinutes(1))),
+                getRemoveItemFromOrderScenario()
+                        .injectOpen(nothingFor(Duration.ofSeconds(5)), rampUsersPerSec(10).to(100).during(Duration.ofMinutes(1)))
+        ).protocols(getHttpProtocolBuilder());
+    }
+
+    private static ScenarioBuilder getAddItemToOrderScenario() {
+        Random random = new Random();
+        return scenario("Add item to order")
+                .exec(http("add-item-get-products")
+                        .get("/api/product?pageNumber=0&pageSize=100")
+                        .check(status().is(200))
+                        .check(bodyString().saveAs("products")))
+                .exec(http("add-item-get-orders")
+                        .get("/api/order?pageNumber=0&pageSize=100")
+                        .check(status().is(200))
+                        .check(bodyString().saveAs("orders")))
+                .exec(session -> {
+                    List<Product> products = fromJson(session.getString("products"), new TypeReference<>() {
+                    });
+                    List<Order> orders = fromJson(session.getString("orders"), new TypeReference<>() {
+                    });
+                    Product product = products.get(random.nextInt(products.size()));
+                    return session
+                            .set("order-id", getUniqueElement(orders).getId())
+                            .set("item", toJson(OrderItem.builder().product(product).quantity(1).build()));
+                })
+                .exec(http("add-item-update-order")
+                        .post(session -> "/api/order/" + session.getString("order-id") + "/items")
+                        .header("Content-Type", "application/json")
+                        .body(StringBody(session -> session.getString("item")))
+                        .check(status().is(200)))
+                .exitHereIfFailed();
+    }
+
+    private static ScenarioBuilder getRemoveItemFromOrderScenario() {
+        return scenario("Remove item from order")
+                .exec(http("remove-item-get-orders")
+                        .get("/api/order?pageNumber=0&pageSize=100")
+                        .check(status().is(200))
+                        .check(bodyString().saveAs("orders")))
+                .exec(session -> {
+                    List<Order> orders = fromJson(session.getString("orders"), new TypeReference<>() {
+                    });
+                    return session.set("order-id", getUniqueElement(orders).getId());
+                })
+                .exec(http("remove-item-update-order")
+                        .delete(session -> "/api/order/" + session.getString("order-id") + "/items/0")
+                        // 404 when the order has run out of items
+                        .check(status().in(200, 404)))
+                .exitHereIfFailed();
+    }
+}
@@ -0,0 +1,103 @@
+package com.kpliuta.demo.load;
+
+import io.gatling.javaapi.core.Assertion;
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.core.Simulation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.kpliuta.demo.load.LoadTestSupport.getHttpProtocolBuilder;
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * Base of simulations asserting service level objectives. A {@link Dataset} is created first, then each scenario is
+ * injected at a constant rate of new users after a ramp up. The run fails if the 95th or 99th response time percentile
+ * or the percentage of failed requests exceeds its objective. Simulations tracking conflicts (412 responses to
+ * conditional updates, which are expected and not counted as failed requests) also fail if the percentage of
+ * conflicting updates exceeds its own objective.
+ * <p>
+ * Parameters (system properties): {@code usersPerSec} (50), {@code durationSeconds} (60), {@code p95Millis} (250),
+ * {@code p99Millis} (500), {@code maxErrorPercent} (1), {@code maxConflictPercent} (1) and the dataset size.
+ */
+abstract class SloSimulation extends Simulation {
+
+    static final double USERS_PER_SEC = Double.parseDouble(System.getProperty("usersPerSec", "50"));
+    static final Duration RAMP_UP = Duration.ofSeconds(10);
+    static final Duration DURATION = Duration.ofSeconds(Long.getLong("durationSeconds", 60));
+    static final int P95_MILLIS = Integer.getInteger("p95Millis", 250);
+    static final int P99_MILLIS = Integer.getInteger("p99Millis", 500);
+    static final double MAX_ERROR_PERCENT = Double.parseDouble(System.getProperty("maxErrorPercent", "1"));
+    static final double MAX_CONFLICT_PERCENT = Double.parseDouble(System.getProperty("maxConflictPercent", "1"));
+
+    private static final String CONFLICTS_GROUP = "conflicts";
+
+    private volatile Dataset dataset;
+    private boolean conflictsTracked;
+
+    @Override
+    public void before() {
+        dataset = Dataset.create();
+    }
+
+    /**
+     * Sets up given scenarios with the objectives, each one at the configured user rate.
+     */
+    void setUpWithObjectives(ScenarioBuilder... scenarios) {
+        setUp(Arrays.stream(scenarios)
+                .map(scenario -> scenario.injectOpen(
+                        rampUsersPerSec(1).to(USERS_PER_SEC).during(RAMP_UP),
+                        constantUsersPerSec(USERS_PER_SEC).during(DURATION)))
+                .toList())
+                .protocols(getHttpProtocolBuilder())
+                .assertions(objectives(conflictsTracked));
+    }
+
+    /**
+     * Records the outcome of a conditional update whose response status is saved in given session attribute: a 412
+     * response fails the conflicts group, whose percentage of failures is asserted against {@code maxConflictPercent}.
+     * The session itself is kept successful, a conflict is not a failed request.
+     */
+    ChainBuilder trackConflict(String statusAttribute) {
+        conflictsTracked = true;
+        return group(CONFLICTS_GROUP).on(exec(session ->
+                        isConflict(session, statusAttribute) ? session.markAsFailed() : session))
+                .exec(session -> isConflict(session, statusAttribute) ? session.markAsSucceeded() : session);
+    }
+
+    private static boolean isConflict(Session session, String statusAttribute) {
+        return session.contains(statusAttribute) && session.getInt(statusAttribute) == 412;
+    }
+
+    /**
+     * @return endless feeder of random products, orders and customers of the dataset
+     */
+    Iterator<Map<String, Object>> randomRecords() {
+        return Stream.generate(() -> dataset.randomRecord()).iterator();
+    }
+
+    /**
+     * @return dataset, available once the simulation runs
+     */
+    Dataset dataset() {
+        return dataset;
+    }
+
+    private static List<Assertion> objectives(boolean conflictsTracked) {
+        List<Assertion> objectives = new ArrayList<>(List.of(
+                global().responseTime().percentile(95.0).lt(P95_MILLIS),
+                global().responseTime().percentile(99.0).lt(P99_MILLIS),
+                global().failedRequests().percent().lt(MAX_ERROR_PERCENT)));
+        if (conflictsTracked) {
+            objectives.add(details(CONFLICTS_GROUP).failedRequests().percent().lt(MAX_CONFLICT_PERCENT));
+        }
+        return objectives;
+    }
+}